@@ -1,32 +1,38 @@
 package edu.unf.cnt3404.sicxe;
 
-import edu.unf.cnt3404.sicxe.syntax.Command;
+import edu.unf.cnt3404.sicxe.global.Mnemonic;
+import edu.unf.cnt3404.sicxe.syntax.CommandTable;
+import edu.unf.cnt3404.sicxe.syntax.SymbolTable;
 
 //Helps with the alignment of a listing file by storing maximum
 //lengths of certain interior columns (label, mnemonic, argument).
-//Just update the alignment with every command in the program
+//Just update the alignment with every row in the program
 public class Alignment {
 	private int maxLineLength;
 	private int maxLabelLength;
 	private int maxNameLength;
 	private int maxArgumentLength;
 	
-	//Updates the alignment information in light of the given command
-	public void update(Command c) {
-		maxLineLength = Math.max(maxLineLength, Integer.toString(c.getLine()).length());
+	private SymbolTable symbols; //Names labels and arguments
+	
+	public Alignment(SymbolTable symbols) {
+		this.symbols = symbols;
+	}
+	
+	//Updates the alignment information in light of row i of the table
+	public void update(CommandTable table, int i) {
+		maxLineLength = Math.max(maxLineLength, Integer.toString(table.getLine(i)).length());
 
-		String label = c.getLabel();
-		if (label != null) {
-			maxLabelLength = Math.max(maxLabelLength, label.length());
-		}
-		String name = c.getName();
-		if (name != null) {
-			maxNameLength = Math.max(maxNameLength, name.length());
+		int label = table.getLabel(i);
+		if (label >= 0) {
+			maxLabelLength = Math.max(maxLabelLength, symbols.getLength(label));
 		}
-		String arg = c.getArgument();
-		if (arg != null) {
-			maxArgumentLength = Math.max(maxArgumentLength, arg.length());
+		Mnemonic mnemonic = table.getMnemonic(i);
+		if (mnemonic != null) {
+			//The name is marked with a space or a +
+			maxNameLength = Math.max(maxNameLength, mnemonic.getName().length() + 1);
 		}
+		maxArgumentLength = Math.max(maxArgumentLength, table.getArgumentLength(i));
 	}
 	
 	public int getMaxLineLength() {
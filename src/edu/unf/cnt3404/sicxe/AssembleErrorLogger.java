@@ -1,28 +1,52 @@
 package edu.unf.cnt3404.sicxe;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
 import edu.unf.cnt3404.sicxe.parse.AssembleError;
 import edu.unf.cnt3404.sicxe.parse.Locatable;
 
+//Collects the errors of a program in an append-only buffer of parallel
+//columns, so logging an error creates no objects. A row shows only the last
+//error logged for it.
 public class AssembleErrorLogger {
-	
-	private Map<Integer, AssembleError> errors = new HashMap<>();
-	
+
+	private int[] rows = new int[16];
+	private int[] cols = new int[16];
+	private String[] messages = new String[16];
+	private int size;
+
 	public void log(Locatable l, String message) {
-		errors.put(l.getRow(), new AssembleError(l, message));
+		log(l.getRow(), l.getCol(), message);
 	}
-	
+
 	public void log(AssembleError e) {
-		errors.put(e.getRow(), e);
+		log(e.getRow(), e.getCol(), e.getMessage());
 	}
-	
+
+	public void log(int row, int col, String message) {
+		if (size == rows.length) {
+			rows = Arrays.copyOf(rows, size * 2);
+			cols = Arrays.copyOf(cols, size * 2);
+			messages = Arrays.copyOf(messages, size * 2);
+		}
+		rows[size] = row;
+		cols[size] = col;
+		messages[size] = message;
+		size++;
+	}
+
+	//Gets the last error logged for each row, by row
 	public Map<Integer, AssembleError> toMap() {
+		Map<Integer, AssembleError> errors = new HashMap<>();
+		for (int i = 0; i < size; i++) {
+			errors.put(rows[i], new AssembleError(rows[i], cols[i], messages[i]));
+		}
 		return errors;
 	}
-	
+
 	public boolean hasErrors() {
-		return !errors.isEmpty();
+		return size > 0;
 	}
 }
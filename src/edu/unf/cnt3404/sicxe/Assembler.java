@@ -1,148 +1,295 @@
 package edu.unf.cnt3404.sicxe;
 
+import java.util.List;
+
 import edu.unf.cnt3404.sicxe.global.Global;
+import edu.unf.cnt3404.sicxe.global.Mnemonic;
+import edu.unf.cnt3404.sicxe.object.ModificationRecord;
 import edu.unf.cnt3404.sicxe.parse.AssembleError;
-import edu.unf.cnt3404.sicxe.syntax.Command;
-import edu.unf.cnt3404.sicxe.syntax.Expression;
+import edu.unf.cnt3404.sicxe.syntax.CommandTable;
+import edu.unf.cnt3404.sicxe.syntax.Evaluator;
 import edu.unf.cnt3404.sicxe.syntax.Program;
-import edu.unf.cnt3404.sicxe.syntax.command.directive.BaseDirective;
-import edu.unf.cnt3404.sicxe.syntax.command.directive.EndDirective;
-import edu.unf.cnt3404.sicxe.syntax.command.directive.NoBaseDirective;
-import edu.unf.cnt3404.sicxe.syntax.command.directive.WordDirective;
+import edu.unf.cnt3404.sicxe.syntax.SymbolTable;
 import edu.unf.cnt3404.sicxe.syntax.command.instruction.AddressMode;
-import edu.unf.cnt3404.sicxe.syntax.command.instruction.Format2Instruction;
-import edu.unf.cnt3404.sicxe.syntax.command.instruction.Format34Instruction;
 
-//Performs pass two by assembling various commands.
+//Performs pass two by assembling the rows of the command table into object code.
+//Only the directives that change the state of the program (END, BASE, NOBASE)
+//have to be assembled in order. Every other row depends only on the symbol table
+//and its own columns, so assemblers on different threads can work on different
+//rows of the same table.
 public class Assembler {
 	private Program program;
+	private CommandTable table;
+	private Evaluator evaluator;
+	//The code of a row assembled early. No row is longer than 4 bytes
+	private byte[] early = new byte[4];
 	
-	public Assembler(Program program) {
+	public Assembler(Program program, CommandTable table) {
 		this.program = program;
+		this.table = table;
+		evaluator = new Evaluator(program.getSymbols());
 	}
 	
-	public void assemble(Command c) throws AssembleError {
-		//There's got to be a better way...
-		if (c instanceof EndDirective) assemble((EndDirective)c);
-		if (c instanceof BaseDirective) assemble((BaseDirective)c);
-		if (c instanceof NoBaseDirective) assemble((NoBaseDirective)c);
-		if (c instanceof WordDirective) assemble((WordDirective)c);
-		
-		if (c instanceof Format2Instruction) assemble((Format2Instruction)c);
-		if (c instanceof Format34Instruction) assemble((Format34Instruction)c);
+	//Whether the mnemonic is a directive that changes the program state
+	public static boolean isStateDirective(int ordinal) {
+		return ordinal == Global.END || ordinal == Global.BASE || ordinal == Global.NOBASE;
+	}
+	
+	//Assembles a row whose directive changes the program state. These rows
+	//must be assembled in order. If the expression cannot be evaluated, 
+	//the state does not change
+	public void assembleStateDirective(int i) throws AssembleError {
+		evaluate(i);
+		switch(table.getOrdinal(i)) {
+		case Global.END: assembleEnd(i); break;
+		case Global.BASE: program.setBase(evaluator.getValue()); break;
+		case Global.NOBASE: program.disableBase(); break;
+		default: throw new IllegalStateException(Integer.toString(table.getOrdinal(i)));
+		}
+	}
+	
+	//Evaluates the expression of any other row, then writes its object code, 
+	//if any, to code starting at pos. base is the contents of the base register, 
+	//or less than 0 if base is disabled.
+	//If the expression cannot be evaluated, nothing is assembled
+	public void assemble(int i, int base, byte[] code, int pos) throws AssembleError {
+		Mnemonic mnemonic = table.getMnemonic(i);
+		if (mnemonic == null) {
+			return; //Comments
+		}
+		//ORG was evaluated in pass one
+		if (mnemonic.getOrdinal() != Global.ORG) {
+			evaluate(i);
+		}
+		if (mnemonic.getFormat() == null) {
+			switch(mnemonic.getOrdinal()) {
+			case Global.WORD: assembleWord(code, pos); break;
+			case Global.BYTE: assembleByte(i, code, pos); break;
+			default: break; //Nothing to assemble
+			}
+			return;
+		}
+		switch(mnemonic.getFormat()) {
+		case FORMAT1: code[pos] = mnemonic.getOpcode(); break;
+		case FORMAT2N: 
+		case FORMAT2R:
+		case FORMAT2RN:
+		case FORMAT2RR: assembleFormat2(i, mnemonic, code, pos); break;
+		case FORMAT34:
+		case FORMAT34M: assembleFormat34(i, mnemonic, base, code, pos); break;
+		default: throw new IllegalStateException(mnemonic.getFormat().toString());
+		}
+	}
+	
+	//Assembles row i as soon as pass one defines it, if its object code is
+	//already certain: the row uses only symbols defined so far, needs neither
+	//the base register nor modification records, and has no error. Returns
+	//whether it was assembled, in which case the table keeps its code
+	public boolean assembleEarly(int i) {
+		int ordinal = table.getOrdinal(i);
+		//BYTE data is in the table already
+		if (!table.isWriteable(i) || ordinal == Global.BYTE) {
+			return false;
+		}
+		int expression = table.getExpression(i);
+		if (expression >= 0 && !evaluator.isResolvable(table.getCode(), 
+				table.getCodeStart(expression), table.getCodeEnd(expression))) {
+			return false;
+		}
+		try {
+			//Without a base register, a row that needs one is an error
+			assemble(i, -1, early, 0);
+		} catch (AssembleError e) {
+			return false;
+		}
+		if (table.isModifiable(i) && (evaluator.getExternalCount() > 0 || (evaluator.getNetSign() != 0
+				&& (ordinal == Global.WORD || table.getAddressMode(i) == AddressMode.ABSOLUTE)))) {
+			return false;
+		}
+		table.setEarlyCode(i, early, 0);
+		return true;
 	}
 	
-	private void assemble(Format2Instruction c) {
-		String r1 = c.getRegisterOne();
-		String r2 = c.getRegisterTwo();
-		byte n = c.getNumber();
+	//Adds the modification records of a modifiable row (see CommandTable) 
+	//that was just assembled
+	public void modify(int i, List<ModificationRecord> mods) {
+		boolean word = table.getOrdinal(i) == Global.WORD;
+		
+		//Of the mod record. A WORD modifies the entire word, and an instruction
+		//modifies the 5 half-bytes of a format 4 address, after the opcode
+		int start = table.getLocation(i) + (word ? 0 : 1);
+		int stride = word ? 6 : 5;
 		
-		Byte b1 = null;
-		if (r1 != null) {
-			b1 = Global.REGISTERS.get(r1);
+		//Make mod records for external symbols. Period.
+		for (int j = 0; j < evaluator.getExternalCount(); j++) {
+			mods.add(new ModificationRecord(start, stride, 
+				program.getSymbols().getName(evaluator.getExternalSymbol(j)), 
+				evaluator.isExternalPositive(j)));
 		}
-		Byte b2 = null;
-		if (r2 != null) {
-			b2 = Global.REGISTERS.get(r2);
+		
+		//Number of program relative modification records equal to |netSign|. 
+		//The signs of these records are equal to sign(netSign).
+		//Whether the assembled value in the object code is absolutely the expression's
+		//value: a WORD always is, and an instruction is when it is not PC or base relative
+		if (word || table.getAddressMode(i) == AddressMode.ABSOLUTE) {
+			int netSign = evaluator.getNetSign();
+			int abs = Math.abs(netSign); 
+			//If >1, then there would require multiple program relative modification records
+			//Is this even allowed? 
+			for (int j = 0; j < abs; j++) {
+				mods.add(new ModificationRecord(start, stride, program.getName(), netSign > 0));
+			}
 		}
+	}
+	
+	//Evaluates the expression of the row, if it has one
+	private void evaluate(int i) throws AssembleError {
+		int expression = table.getExpression(i);
+		if (expression >= 0) {
+			evaluator.evaluate(table.getCode(), table.getCodeStart(expression), 
+				table.getCodeEnd(expression), table.getLine(i), table.getLocation(i));
+		}
+	}
+	
+	//Looks up the code of the register named by the symbol id
+	private byte register(int i, int id) throws AssembleError {
+		SymbolTable symbols = program.getSymbols();
+		int code = Global.getRegister(symbols.getPool(), symbols.getStart(id), symbols.getEnd(id));
+		if (code < 0) {
+			throw new AssembleError(table.getLine(i), 1, "Unrecognized register " + symbols.getName(id));
+		}
+		return (byte)code;
+	}
+	
+	private void assembleFormat2(int i, Mnemonic mnemonic, byte[] code, int pos) 
+			throws AssembleError {
+		int operand = table.getOperand(i);
+		int second = table.getSecondOperand(i);
 		
-		switch(c.getMnemonic().getFormat()) {
-		case FORMAT2N: c.setArgument(n); break;
-		case FORMAT2R: c.setArgument(b1); break;
-		case FORMAT2RN: c.setArgument(b1, n); break;
-		case FORMAT2RR: c.setArgument(b1, b2); break;
-		default: throw new IllegalStateException(c.getMnemonic().getFormat().toString());
+		//The 4 higher order bits of the argument, and the 4 lower order bits
+		int higher;
+		int lower = 0;
+		switch(mnemonic.getFormat()) {
+		case FORMAT2N: higher = operand; break;
+		case FORMAT2R: higher = register(i, operand); break;
+		case FORMAT2RN: higher = register(i, operand); lower = second; break;
+		case FORMAT2RR: higher = register(i, operand); lower = register(i, second); break;
+		default: throw new IllegalStateException(mnemonic.getFormat().toString());
 		}
 		
+		code[pos] = mnemonic.getOpcode();
+		code[pos + 1] = (byte)(((higher & 0xF) << 4) | (lower & 0xF));
 	}
 	
-	private void assemble(Format34Instruction c) throws AssembleError {
-		Expression expr = c.getExpression();
-		if (!expr.isEvaluated()) {
-			return;
+	private void assembleFormat34(int i, Mnemonic mnemonic, int base, byte[] code, int pos) 
+			throws AssembleError {
+		if (table.getExpression(i) < 0) {
+			throw new AssembleError(table.getLine(i), 1, "Expected operand");
 		}
+		boolean extended = (table.getFlags(i) & CommandTable.EXTENDED) != 0;
 		//Format 3 instructions cannot have external symbols
-		if (!c.isExtended() && !expr.getExternalSymbols().isEmpty()) {
-			throw new AssembleError(c, "External symbols and not extended");
+		if (!extended && evaluator.getExternalCount() > 0) {
+			throw new AssembleError(table.getLine(i), 1, "External symbols and not extended");
 		}
 		//Format 3 instructions cannot have more than 1 unpaired relative
-		if (!c.isExtended() && Math.abs(expr.getNetSign()) > 1) {
-			throw new AssembleError(c, "More than 1 unpaired local relative term and not extended");
+		if (!extended && Math.abs(evaluator.getNetSign()) > 1) {
+			throw new AssembleError(table.getLine(i), 1, 
+				"More than 1 unpaired local relative term and not extended");
 		}
 		//Extended can have anything
-		if (c.isExtended()) {
-			c.setAddressMode(AddressMode.ABSOLUTE);
-			c.setArgument(expr.getValue());
+		if (extended) {
+			encodeFormat34(i, mnemonic, AddressMode.ABSOLUTE, evaluator.getValue(), code, pos);
 		//Absolute expression, not extended
-		} else if (expr.isAbsolute()){
+		} else if (evaluator.isAbsolute()){
 			//Check to see if it fits in 12 bits
-			int argument = expr.getValue();
+			int argument = evaluator.getValue();
 			if (0 <= argument && argument < 4096) {
-				c.setAddressMode(AddressMode.ABSOLUTE);
-				c.setArgument(argument);
+				encodeFormat34(i, mnemonic, AddressMode.ABSOLUTE, argument, code, pos);
 				return;
 			}
 			//Generating ni=00 with 15 bits might be useful
 			//But, the architect decided not to do that.
 			
-			throw new AssembleError(c, "Absolute expression bigger than 4095 and not extended");
+			throw new AssembleError(table.getLine(i), 1, 
+				"Absolute expression bigger than 4095 and not extended");
 		//Relative expression, not extended
 		} else {
 			int argument; //Either PC Disp or Base Disp
-			int target = expr.getValue();
+			int target = evaluator.getValue();
 			//Try: PC relative
 			//(PC) + argument = target
-			argument = target - 3 - program.getLocationCounter();
+			argument = target - 3 - table.getLocation(i);
 			if (-2048 <= argument && argument < 2048) {
-				c.setAddressMode(AddressMode.PC);
-				c.setArgument(argument);
+				encodeFormat34(i, mnemonic, AddressMode.PC, argument, code, pos);
 				return;
 			}
 			
 			//Ensure base is enabled
-			if (!program.isBaseEnabled()) {
-				throw new AssembleError(c, "PC out of range and base disabled");
+			if (base < 0) {
+				throw new AssembleError(table.getLine(i), 1, "PC out of range and base disabled");
 			}
 			
 			//Try: Base relative
 			//(B) + argument = target
-			argument = target - program.getBase();
+			argument = target - base;
 			if (0 <= argument && argument < 4096) {
-				c.setAddressMode(AddressMode.BASE);
-				c.setArgument(argument);
+				encodeFormat34(i, mnemonic, AddressMode.BASE, argument, code, pos);
 				return;
 			}		
-			throw new AssembleError(c, "Base out of range and not extended");
+			throw new AssembleError(table.getLine(i), 1, "Base out of range and not extended");
 		}
 	}
-
-	private void assemble(WordDirective c) {
-		Expression expr = c.getExpression();
-		if (!expr.isEvaluated()) {
-			return;
+	
+	private void encodeFormat34(int i, Mnemonic mnemonic, AddressMode address, int value, 
+			byte[] code, int pos) {
+		int flags = table.getFlags(i);
+		int ni = flags & CommandTable.NI;
+		boolean extended = (flags & CommandTable.EXTENDED) != 0;
+		boolean indexed = (flags & CommandTable.INDEXED) != 0;
+		//Mask so that a negative 12-bit disp will not overflow into xbpe
+		int mask;
+		if (extended) { 
+			//20 bit mask
+			mask = (1 << 20) - 1;
+		} else if (ni == 0){ 
+			//15 bit mask
+			mask = (1 << 15) - 1;
+		} else { 
+			//12 bit mask
+			mask = (1 << 12) - 1;
 		}
-		c.setWord(expr.getValue());
-	}
-
-	private void assemble(EndDirective c) {
-		Expression expr = c.getExpression();
-		if (expr == null) {
-			program.disableFirst();
-		} else if (expr.isEvaluated()){
-			program.setFirst(expr.getValue());
+		//The argument is held in 16 bits, as the instruction always has
+		short argument = (short)(mask & value);
+		
+		code[pos] = (byte)(mnemonic.getOpcode() | ni);
+		if (extended) {
+			code[pos + 1] = (byte)((argument >> 16));
+			code[pos + 2] = (byte)(argument >> 8);
+			code[pos + 3] = (byte)(argument);
+		} else {
+			code[pos + 1] = (byte)((argument >> 8));
+			code[pos + 2] = (byte)(argument);
 		}
+		code[pos + 1] |= address.getXbpeFlag(indexed, extended);
+		table.setAddressMode(i, address);
 	}
 
-	private void assemble(BaseDirective c) {
-		Expression expr = c.getExpression();
-		if (!expr.isEvaluated()) {
-			return;
-		}
-		program.setBase(c.getExpression().getValue());
+	private void assembleWord(byte[] code, int pos) {
+		int word = evaluator.getValue();
+		code[pos] = (byte)(word >> 16);
+		code[pos + 1] = (byte)(word >> 8);
+		code[pos + 2] = (byte)(word);
+	}
+	
+	private void assembleByte(int i, byte[] code, int pos) {
+		System.arraycopy(table.getBytes(), table.getOperand(i), code, pos, table.getSize(i));
 	}
 
-	private void assemble(NoBaseDirective c) {
-		program.disableBase();
+	private void assembleEnd(int i) {
+		if (table.getExpression(i) < 0) {
+			program.disableFirst();
+		} else {
+			program.setFirst(evaluator.getValue());
+		}
 	}
-	
 }
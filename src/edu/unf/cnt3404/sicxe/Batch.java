@@ -0,0 +1,268 @@
+package edu.unf.cnt3404.sicxe;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+
+import edu.unf.cnt3404.sicxe.parse.AssembleError;
+
+//Assembles many source files in one JVM, several at a time, so that startup
+//and warmup are paid once. Every file gets its own SicXeAssm; the only state
+//the files share are the tables in Global, which never change.
+//Two limits apply: the number of files assembled at once, and an estimate of
+//the memory they take together. The listing and object program of a file are
+//rendered into buffers that are reused by the next files.
+public class Batch {
+
+	//Status of an assembled file
+	public enum Status {
+		//Assembled without errors
+		OK,
+		//Assembled, but the listing has errors
+		ERRORS,
+		//Pass one stopped at a syntax error
+		SYNTAX,
+		//The file could not be read or written
+		FAILED
+	}
+
+	//Estimated bytes of memory that assembling takes per byte of source:
+	//the source, its command table, and the listing and object buffers
+	private static final int MEMORY_PER_BYTE = 16;
+	//Buffers that grew larger than this are dropped instead of reused
+	private static final int MAX_POOLED = 8 << 20;
+
+	private int jobs;
+	private int threads = 1;
+	private boolean spill;
+	private boolean pipeline;
+	private boolean listing = true;
+	private boolean object = true;
+	//Estimated memory, in kilobytes, left for files to start assembling
+	private Semaphore memory;
+	private int memoryLimit;
+	private BlockingQueue<ByteArrayOutputStream> buffers;
+
+	//Assembles at most jobs files at once, which together are estimated to take
+	//at most memoryLimit megabytes. A file that alone is estimated to take more
+	//is assembled while no other file is
+	public Batch(int jobs, int memoryLimit) {
+		this.jobs = jobs;
+		this.memoryLimit = memoryLimit << 10;
+		memory = new Semaphore(this.memoryLimit);
+		buffers = new ArrayBlockingQueue<>(2 * jobs);
+	}
+
+	//Sets the number of threads that assemble each file
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+
+	//Makes every file spill its rows to <file>.int
+	public void spill(boolean spill) {
+		this.spill = spill;
+	}
+
+	//Gets the source files named by the arguments. A directory stands for every
+	//.txt file below it, and @manifest for the files listed in the manifest,
+	//one per line
+	public static List<Path> getFiles(String[] args, int from) throws IOException {
+		List<Path> files = new ArrayList<>();
+		for (int i = from; i < args.length; i++) {
+			if (args[i].startsWith("@")) {
+				for (String line : Files.readAllLines(Paths.get(args[i].substring(1)))) {
+					if (!line.trim().isEmpty()) {
+						files.add(Paths.get(line.trim()));
+					}
+				}
+			} else if (Files.isDirectory(Paths.get(args[i]))) {
+				try (Stream<Path> walk = Files.walk(Paths.get(args[i]))) {
+					walk.filter(path -> Files.isRegularFile(path) && path.toString().endsWith(".txt"))
+						.sorted()
+						.forEach(files::add);
+				}
+			} else {
+				files.add(Paths.get(args[i]));
+			}
+		}
+		return files;
+	}
+
+	//Makes every file parse pass one on a thread of its own
+	public void setPipeline(boolean pipeline) {
+		this.pipeline = pipeline;
+	}
+
+	//Sets which files to write. A file that writes no listing reports its
+	//first error instead
+	public void setOutput(boolean listing, boolean object) {
+		this.listing = listing;
+		this.object = object;
+	}
+
+	//Assembles the files, and returns their results in the same order
+	public List<Result> run(List<Path> files) throws InterruptedException {
+		ExecutorService executor = Executors.newFixedThreadPool(jobs);
+		List<Future<Result>> futures = new ArrayList<>();
+		for (Path file : files) {
+			futures.add(executor.submit(() -> assemble(file)));
+		}
+		executor.shutdown();
+		List<Result> results = new ArrayList<>();
+		for (Future<Result> future : futures) {
+			try {
+				results.add(future.get());
+			} catch (ExecutionException e) {
+				throw new IllegalStateException(e.getCause());
+			}
+		}
+		return results;
+	}
+
+	//Assembles one file, writing <file>.lst and <file>.obj next to it
+	private Result assemble(Path file) throws InterruptedException {
+		long start = System.nanoTime();
+		long size;
+		try {
+			size = Files.size(file);
+		} catch (IOException e) {
+			return new Result(file, Status.FAILED, "Cannot open file", start);
+		}
+		int permits = (int)Math.min(memoryLimit, size * MEMORY_PER_BYTE >> 10);
+		memory.acquire(permits);
+		ByteArrayOutputStream lst = takeBuffer();
+		ByteArrayOutputStream obj = takeBuffer();
+		try {
+			byte[] source;
+			try {
+				source = Files.readAllBytes(file);
+			} catch (IOException e) {
+				return new Result(file, Status.FAILED, "Cannot open file", start);
+			}
+			SicXeAssm assm = new SicXeAssm(source);
+			assm.setThreads(threads);
+			assm.setPipeline(pipeline);
+			assm.setListing(listing);
+			if (spill) {
+				assm.spill(Paths.get(file + ".int"));
+			}
+			String message = null;
+			try {
+				assm.passOne();
+			} catch (AssembleError e) {
+				message = String.format("Syntax error in pass 1 (Row %d, Col %d) %s",
+					e.getRow(), e.getCol(), e.getMessage());
+			}
+			boolean errors = assm.passTwo(listing ? new PrintWriter(lst) : null, 
+				object ? Channels.newChannel(obj) : null);
+			try {
+				if (listing) {
+					write(Paths.get(file + ".lst"), lst);
+				}
+				//Like a single file, the object program is left empty if there are errors
+				if (errors) {
+					obj.reset();
+				}
+				if (object) {
+					write(Paths.get(file + ".obj"), obj);
+				}
+			} catch (IOException e) {
+				return new Result(file, Status.FAILED, "Cannot write " + e.getMessage(), start);
+			}
+			if (message != null) {
+				return new Result(file, Status.SYNTAX, message, start);
+			}
+			if (errors && !listing) {
+				AssembleError e = assm.getErrors().get(0);
+				message = String.format("(Row %d, Col %d) %s", e.getRow(), e.getCol(), e.getMessage());
+			}
+			return new Result(file, errors ? Status.ERRORS : Status.OK, message, start);
+		} catch (RuntimeException e) {
+			//A file the assembler cannot handle fails alone, not the whole batch
+			return new Result(file, Status.FAILED, e.toString(), start);
+		} finally {
+			giveBuffer(lst);
+			giveBuffer(obj);
+			memory.release(permits);
+		}
+	}
+
+	private static void write(Path path, ByteArrayOutputStream buffer) throws IOException {
+		try (OutputStream out = Files.newOutputStream(path)) {
+			buffer.writeTo(out);
+		}
+	}
+
+	private ByteArrayOutputStream takeBuffer() {
+		ByteArrayOutputStream buffer = buffers.poll();
+		return buffer == null ? new ByteArrayOutputStream(1 << 16) : buffer;
+	}
+
+	private void giveBuffer(ByteArrayOutputStream buffer) {
+		if (buffer.size() <= MAX_POOLED) {
+			buffer.reset();
+			buffers.offer(buffer);
+		}
+	}
+
+	//Prints one line per file, then the totals
+	public static void report(List<Result> results, long millis, PrintStream out) {
+		int[] counts = new int[Status.values().length];
+		for (Result result : results) {
+			counts[result.getStatus().ordinal()]++;
+			out.printf("%-6s %6d ms  %s", result.getStatus(), result.getMillis(), result.getFile());
+			if (result.getMessage() != null) {
+				out.print("  " + result.getMessage());
+			}
+			out.println();
+		}
+		out.printf("%d files in %d ms: %d ok, %d with errors, %d with syntax errors, %d failed%n",
+			results.size(), millis, counts[Status.OK.ordinal()], counts[Status.ERRORS.ordinal()],
+			counts[Status.SYNTAX.ordinal()], counts[Status.FAILED.ordinal()]);
+	}
+
+	//The outcome of assembling a file
+	public static class Result {
+		private Path file;
+		private Status status;
+		private String message;
+		private long millis;
+
+		public Result(Path file, Status status, String message, long start) {
+			this.file = file;
+			this.status = status;
+			this.message = message;
+			this.millis = (System.nanoTime() - start) / 1000000;
+		}
+
+		public Path getFile() {
+			return file;
+		}
+		public Status getStatus() {
+			return status;
+		}
+		//Gets the reason for the status, or null
+		public String getMessage() {
+			return message;
+		}
+		public long getMillis() {
+			return millis;
+		}
+	}
+}
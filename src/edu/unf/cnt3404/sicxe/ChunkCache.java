@@ -0,0 +1,104 @@
+package edu.unf.cnt3404.sicxe;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.unf.cnt3404.sicxe.parse.Scanner;
+
+//Keeps the parsed chunks of a source file from one assembly to the next, so
+//an edited file is only parsed again where it changed. The source is cut into
+//chunks after lines chosen by their content: a line whose hash has its low
+//bits zero ends a chunk once the chunk is long enough. Lines end where PassOne
+//lets them, outside of data (see PassOne.nextLine). An edit then changes
+//the chunk it is in, and maybe the next, but every other chunk keeps its lines,
+//wherever the edit moved them. A chunk is found by the hash of its lines, and
+//used again if it holds the same lines (see PassOne.Chunk). The chunks of the
+//last two assemblies are kept, so assembling a file that was caught half
+//written does not lose the chunks of the whole file.
+public class ChunkCache {
+
+	//Bytes in a chunk before a line may end it, and before any line ends it
+	private static final int MIN = 1 << 12;
+	private static final int MAX = 1 << 16;
+	//A line ends a chunk if these bits of its hash are zero, about one in 512
+	private static final int MASK = (1 << 9) - 1;
+
+	//Chunks of the last assembly, and of the one before
+	private Map<Long, PassOne.Chunk> chunks = new HashMap<>();
+	private Map<Long, PassOne.Chunk> older = new HashMap<>();
+	private boolean listing;
+	//Chunks that the last assembly had, and how many of them were new
+	private int size;
+	private int parsed;
+
+	//Cuts the source from the scanner's offset on into chunks, which are the
+	//parsed chunks of the earlier assemblies wherever the lines are the same
+	List<PassOne.Chunk> cut(Scanner scanner, boolean listing) {
+		if (listing != this.listing) {
+			chunks.clear();
+			older.clear();
+			this.listing = listing;
+		}
+		byte[] source = scanner.getSource();
+		int length = scanner.getLength();
+		Map<Long, PassOne.Chunk> kept = new HashMap<>();
+		List<PassOne.Chunk> result = new ArrayList<>();
+		parsed = 0;
+		int start = scanner.getOffset();
+		long hash = 0;
+		//Lines end where PassOne cuts its chunks, outside of data
+		for (int line = start; line < length; ) {
+			int end = PassOne.nextLine(source, line, length);
+			int lineHash = 0;
+			for (int pos = line; pos < end; pos++) {
+				lineHash = 31 * lineHash + source[pos];
+			}
+			hash = 1000003 * hash + lineHash;
+			int mixed = lineHash ^ (lineHash >>> 16);
+			if (end == length || end - start >= MAX || (end - start >= MIN && (mixed & MASK) == 0)) {
+				result.add(get(source, start, end, hash, kept));
+				start = end;
+				hash = 0;
+			}
+			line = end;
+		}
+		//An empty source still has a chunk, where it ends
+		if (result.isEmpty()) {
+			result.add(get(source, start, start, hash, kept));
+		}
+		older = chunks;
+		chunks = kept;
+		size = result.size();
+		return result;
+	}
+
+	//Gets the chunk of the lines between start and end, from this assembly or
+	//the ones before, or a new one to parse
+	private PassOne.Chunk get(byte[] source, int start, int end, long hash, Map<Long, PassOne.Chunk> kept) {
+		PassOne.Chunk chunk = kept.get(hash);
+		if (chunk == null || !chunk.holds(source, start, end)) {
+			chunk = chunks.get(hash);
+		}
+		if (chunk == null || !chunk.holds(source, start, end)) {
+			chunk = older.get(hash);
+		}
+		if (chunk == null || !chunk.holds(source, start, end)) {
+			chunk = new PassOne.Chunk(source, start, end, listing);
+			parsed++;
+		}
+		kept.put(hash, chunk);
+		return chunk;
+	}
+
+	//The number of chunks that the last assembly had
+	public int size() {
+		return size;
+	}
+
+	//The number of chunks that the last assembly had to parse
+	public int getParsed() {
+		return parsed;
+	}
+}
@@ -0,0 +1,95 @@
+package edu.unf.cnt3404.sicxe;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.unf.cnt3404.sicxe.parse.AssembleError;
+
+//Assembles each source with pass one parsed on one thread, in chunks on a pool,
+//and in the chunks of a ChunkCache, and checks that the listings, object
+//programs, and syntax errors are the same. Besides the files, it checks a
+//generated source whose C'...' data holds newlines where the chunks would be
+//cut if every newline ended a line. Exits with status 1 if any source differs.
+//Usage: ChunkCheck [file...], by default the .txt files in files/
+public class ChunkCheck {
+	public static void main(String[] args) throws IOException {
+		Map<String, byte[]> sources = new LinkedHashMap<>();
+		List<Path> files = new ArrayList<>();
+		for (String arg : args) {
+			files.add(Paths.get(arg));
+		}
+		if (files.isEmpty()) {
+			try (DirectoryStream<Path> dir = Files.newDirectoryStream(Paths.get("files"), "*.txt")) {
+				dir.forEach(files::add);
+			}
+			files.sort(null);
+		}
+		for (Path file : files) {
+			sources.put(file.toString(), Files.readAllBytes(file));
+		}
+		sources.put("data with newlines", dataWithNewlines());
+
+		boolean same = true;
+		for (Map.Entry<String, byte[]> source : sources.entrySet()) {
+			String serial = assemble(source.getValue(), 1, false);
+			String parallel = assemble(source.getValue(), 4, false);
+			String cached = assemble(source.getValue(), 4, true);
+			if (serial.equals(parallel) && serial.equals(cached)) {
+				System.out.printf("%s: same, %d bytes%n", source.getKey(), source.getValue().length);
+			} else {
+				System.out.printf("%s: DIFFERENT%n", source.getKey());
+				same = false;
+			}
+		}
+		if (!same) {
+			System.exit(1);
+		}
+	}
+
+	//A source of about 200 KB, whose newlines are nearly all within data
+	private static byte[] dataWithNewlines() {
+		StringBuilder source = new StringBuilder("p start 0\n");
+		for (int row = 0; source.length() < 200000; row++) {
+			source.append("d").append(row).append(" byte c'");
+			for (int line = 0; line < 100; line++) {
+				source.append("A\n");
+			}
+			source.append("'\n");
+		}
+		source.append(" end p\n");
+		return source.toString().getBytes(StandardCharsets.US_ASCII);
+	}
+
+	//Returns the syntax error, listing, and object program of the source
+	private static String assemble(byte[] source, int threads, boolean cache) {
+		SicXeAssm assm = new SicXeAssm(source);
+		assm.setThreads(threads);
+		if (cache) {
+			assm.setChunkCache(new ChunkCache());
+		}
+		StringBuilder result = new StringBuilder();
+		try {
+			assm.passOne();
+		} catch (AssembleError e) {
+			result.append(String.format("Syntax error in pass 1 (Row %d, Col %d) %s%n",
+				e.getRow(), e.getCol(), e.getMessage()));
+		}
+		StringWriter lst = new StringWriter();
+		ByteArrayOutputStream obj = new ByteArrayOutputStream();
+		assm.passTwo(new PrintWriter(lst), Channels.newChannel(obj));
+		result.append(lst).append(obj.toString(StandardCharsets.US_ASCII));
+		return result.toString();
+	}
+}
@@ -0,0 +1,451 @@
+package edu.unf.cnt3404.sicxe;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import edu.unf.cnt3404.sicxe.parse.AssembleError;
+
+//Keeps the assembler resident, so that many files are assembled by one warm
+//JVM instead of a cold JVM each. Requests come one per line, on standard input
+//or over the connections to a Unix domain socket, and run on a fixed number of
+//threads. Each response goes, in one piece, to the client that made the request,
+//as soon as the request is done. The requests, where id is any word the client
+//picks to match the responses with, among its own requests:
+//  <id> assemble [options] <file>     assembles the file
+//  <id> source [options] <n> <name>   assembles the n bytes that follow the line,
+//                                     as if they were the file <name>
+//  <id> cancel <other id>             cancels a request that is not done
+//The options are --no-listing, --check, and --one-pass, which mean what they
+//mean to SicXeAssm, --threads=N, where N above 1 runs the assembly on the
+//threads that the requests share, and --deadline=MS, after which the request
+//is cancelled. A response is any number of lines
+//  <id> error <row> <col> <message>
+//  <id> output <file>
+//and then one of
+//  <id> ok | <id> errors | <id> cancelled | <id> timeout | <id> failed <reason>
+//A request that is cancelled or times out leaves no output files.
+//A thin client is a pipe, or anything that writes a line to a Unix socket, like
+//  echo "1 assemble files/proga.txt" | nc -U sicxe.sock
+public class Daemon {
+
+	//The most bytes that a source request may send
+	private static final int MAX_SOURCE = 64 << 20;
+
+	private ExecutorService workers;
+	private ScheduledExecutorService deadlines = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread thread = new Thread(r, "Deadlines");
+		thread.setDaemon(true);
+		return thread;
+	});
+	//Runs the requests that assemble on more than one thread, so they share
+	//its warm threads instead of starting their own
+	private ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+	//Runs at most jobs requests at once
+	public Daemon(int jobs) {
+		workers = Executors.newFixedThreadPool(jobs);
+	}
+
+	//Serves the requests on standard input until it ends, and the requests
+	//that came before then are done
+	public void serve() {
+		new Client(System.in, Channels.newChannel(System.out)).serve();
+		workers.shutdown();
+		pool.shutdown();
+	}
+
+	//Serves the connections to a Unix domain socket at the path, each on a
+	//thread of its own, until the process is stopped
+	public void serve(Path socket) throws IOException {
+		Files.deleteIfExists(socket);
+		try (ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+			server.bind(UnixDomainSocketAddress.of(socket));
+			socket.toFile().deleteOnExit();
+			while (true) {
+				SocketChannel channel = server.accept();
+				Thread thread = new Thread(() -> {
+					try (SocketChannel connection = channel) {
+						new Client(Channels.newInputStream(connection), connection).serve();
+					} catch (IOException e) {
+						//The client went away
+					}
+				}, "Client");
+				thread.setDaemon(true);
+				thread.start();
+			}
+		}
+	}
+
+	//The requests of one client, and the responses to them. The responses are
+	//written to the channel itself, since a stream over a socket channel would
+	//wait for the read of the next request
+	private class Client {
+		private InputStream in;
+		private WritableByteChannel out;
+		//Requests that are not done, by id. Each client has its own, so the ids
+		//of other clients do not clash with its ids
+		private Map<String, Job> jobs = new ConcurrentHashMap<>();
+		//How many of them there are, counted until their responses are written
+		private int pending;
+
+		public Client(InputStream in, WritableByteChannel out) {
+			this.in = new BufferedInputStream(in);
+			this.out = out;
+		}
+
+		//Reads requests until the input ends, then waits for them to be done
+		public void serve() {
+			try {
+				String line;
+				while ((line = readLine()) != null) {
+					try {
+						request(line);
+					} catch (RuntimeException e) {
+						respond(line.trim().split("\\s+", 2)[0] + " failed " + e + "\n");
+					}
+				}
+			} catch (IOException e) {
+				//The client went away, but its requests still run
+			}
+			synchronized (this) {
+				while (pending > 0) {
+					try {
+						wait();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						return;
+					}
+				}
+			}
+		}
+
+		private void request(String line) throws IOException {
+			String[] words = line.trim().split("\\s+", 3);
+			if (words[0].isEmpty()) {
+				return;
+			}
+			String id = words[0];
+			String command = words.length > 1 ? words[1] : "";
+			String rest = words.length > 2 ? words[2] : "";
+			if (command.equals("cancel")) {
+				Job job = jobs.get(rest.trim());
+				if (job == null) {
+					respond(id + " failed no request " + rest.trim() + "\n");
+				} else {
+					job.stop("cancelled");
+					respond(id + " ok\n");
+				}
+				return;
+			}
+			if (!command.equals("assemble") && !command.equals("source")) {
+				respond(id + " failed unknown request " + command + "\n");
+				return;
+			}
+			Job job = new Job(id, this);
+			String file = job.parseOptions(rest);
+			if (command.equals("source")) {
+				String[] source = file.split("\\s+", 2);
+				int length;
+				try {
+					length = Integer.parseInt(source[0]);
+				} catch (NumberFormatException e) {
+					respond(id + " failed expected length\n");
+					return;
+				}
+				if (length < 0) {
+					respond(id + " failed bad length\n");
+					return;
+				}
+				if (length > MAX_SOURCE) {
+					//Skips the source, so the next request is read where it starts
+					respond(id + " failed bad length\n");
+					skip(length);
+					return;
+				}
+				file = source.length > 1 ? source[1] : "";
+				job.source = in.readNBytes(length);
+			}
+			if (job.error != null || file.isEmpty()) {
+				respond(id + " failed " + (job.error != null ? job.error : "expected file") + "\n");
+				return;
+			}
+			job.file = file;
+			if (jobs.putIfAbsent(id, job) != null) {
+				respond(id + " failed request " + id + " is not done\n");
+				return;
+			}
+			synchronized (this) {
+				pending++;
+			}
+			if (job.deadline > 0) {
+				job.timer = deadlines.schedule(() -> job.stop("timeout"), job.deadline, TimeUnit.MILLISECONDS);
+			}
+			workers.execute(job);
+		}
+
+		//Writes a whole response at once, so responses do not mix
+		private synchronized void respond(String response) {
+			ByteBuffer bytes = ByteBuffer.wrap(response.getBytes(StandardCharsets.US_ASCII));
+			try {
+				while (bytes.hasRemaining()) {
+					out.write(bytes);
+				}
+			} catch (IOException e) {
+				//The client went away
+			}
+		}
+
+		private synchronized void done() {
+			pending--;
+			notifyAll();
+		}
+
+		//Reads and drops n bytes. InputStream.skip cannot be used, since it
+		//seeks, and standard input may be a pipe
+		private void skip(int n) throws IOException {
+			byte[] buffer = new byte[8192];
+			while (n > 0) {
+				int read = in.read(buffer, 0, Math.min(n, buffer.length));
+				if (read < 0) {
+					return;
+				}
+				n -= read;
+			}
+		}
+
+		//Reads a line of ASCII, or returns null at the end of the input
+		private String readLine() throws IOException {
+			ByteArrayOutputStream line = new ByteArrayOutputStream();
+			int b;
+			while ((b = in.read()) != '\n') {
+				if (b < 0) {
+					return line.size() == 0 ? null : line.toString(StandardCharsets.US_ASCII);
+				}
+				line.write(b);
+			}
+			return line.toString(StandardCharsets.US_ASCII);
+		}
+	}
+
+	//An assemble request, which runs on a worker thread
+	private class Job implements Runnable {
+		private String id;
+		private Client client;
+		private String file;
+		//The source, or null to read the file
+		private byte[] source;
+		private boolean listing = true;
+		private boolean check;
+		private boolean onePass;
+		private int threads = 1;
+		private int deadline;
+		//A problem with the options, or null
+		private String error;
+		private ScheduledFuture<?> timer;
+
+		//Why the request was stopped, or null
+		private String stop;
+		//The thread running the request, while it runs
+		private Thread thread;
+		private boolean done;
+
+		public Job(String id, Client client) {
+			this.id = id;
+			this.client = client;
+		}
+
+		//Reads the options at the start of the arguments, and returns the rest
+		public String parseOptions(String arguments) {
+			String rest = arguments.trim();
+			while (rest.startsWith("--")) {
+				String[] words = rest.split("\\s+", 2);
+				String option = words[0];
+				rest = words.length > 1 ? words[1] : "";
+				if (option.equals("--no-listing")) {
+					listing = false;
+				} else if (option.equals("--check")) {
+					listing = false;
+					check = true;
+				} else if (option.equals("--one-pass")) {
+					listing = false;
+					onePass = true;
+				} else if (option.startsWith("--threads=")) {
+					threads = getCount(option, "--threads=");
+				} else if (option.startsWith("--deadline=")) {
+					deadline = getCount(option, "--deadline=");
+				} else {
+					error = "unknown option " + option;
+				}
+			}
+			if (onePass && check) {
+				error = "--one-pass writes an object file";
+			}
+			return rest;
+		}
+
+		private int getCount(String option, String name) {
+			try {
+				int count = Integer.parseInt(option.substring(name.length()));
+				if (count > 0) {
+					return count;
+				}
+			} catch (NumberFormatException e) {
+				//Not a count
+			}
+			error = "invalid option " + option;
+			return 1;
+		}
+
+		//Cancels the request, unless it is done
+		public synchronized void stop(String why) {
+			if (stop == null && !done) {
+				stop = why;
+				if (thread != null) {
+					thread.interrupt();
+				}
+			}
+		}
+
+		@Override
+		public void run() {
+			String response = null;
+			boolean stopped;
+			synchronized (this) {
+				thread = Thread.currentThread();
+				stopped = stop != null;
+			}
+			try {
+				if (stopped) {
+					throw new CancellationException();
+				}
+				response = assemble();
+			} catch (CancellationException | UncheckedIOException e) {
+				response = stopped(e);
+			} catch (RuntimeException | Error e) {
+				//Even an error, like a stack overflow on a deep expression, fails
+				//only this request
+				response = id + " failed " + e + "\n";
+			} finally {
+				synchronized (this) {
+					thread = null;
+					done = true;
+				}
+				//An interrupt that came too late must not reach the next request
+				Thread.interrupted();
+				if (timer != null) {
+					timer.cancel(false);
+				}
+				client.jobs.remove(id);
+				client.respond(response != null ? response : id + " failed\n");
+				client.done();
+			}
+		}
+
+		//The response to a request that stopped without finishing
+		private String stopped(RuntimeException e) {
+			String why;
+			synchronized (this) {
+				why = stop;
+			}
+			if (why == null) {
+				return id + " failed " + e + "\n";
+			}
+			try {
+				Files.deleteIfExists(Paths.get(file + ".lst"));
+				Files.deleteIfExists(Paths.get(file + ".obj"));
+			} catch (IOException ex) {
+				//Nothing more to do
+			}
+			return id + " " + why + "\n";
+		}
+
+		//Assembles the request, and returns the response
+		private String assemble() {
+			StringBuilder response = new StringBuilder();
+			if (source == null) {
+				try {
+					source = Files.readAllBytes(Paths.get(file));
+				} catch (IOException e) {
+					return id + " failed cannot open file " + file + "\n";
+				}
+			}
+			SicXeAssm assm = new SicXeAssm(source);
+			if (threads > 1) {
+				assm.setPool(pool);
+			} else {
+				assm.setThreads(1);
+			}
+			assm.setListing(listing);
+			AssembleError syntax = null;
+			Path lst = Paths.get(file + ".lst");
+			Path obj = Paths.get(file + ".obj");
+			try (FileChannel objChannel = check ? null : FileChannel.open(obj, StandardOpenOption.CREATE,
+					StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+				if (onePass) {
+					try {
+						assm.onePass(objChannel);
+					} catch (AssembleError e) {
+						syntax = e;
+					}
+				} else {
+					try {
+						assm.passOne();
+					} catch (AssembleError e) {
+						syntax = e;
+					}
+					try (PrintWriter lstWriter = listing ? new PrintWriter(lst.toFile()) : null) {
+						assm.passTwo(lstWriter, objChannel);
+					}
+				}
+			} catch (IOException e) {
+				return id + " failed cannot write " + e.getMessage() + "\n";
+			}
+			if (syntax != null) {
+				error(response, syntax);
+			}
+			for (AssembleError e : assm.getErrors()) {
+				error(response, e);
+			}
+			if (listing) {
+				response.append(id).append(" output ").append(lst).append('\n');
+			}
+			if (!check) {
+				response.append(id).append(" output ").append(obj).append('\n');
+			}
+			boolean errors = syntax != null || assm.hasErrors();
+			response.append(id).append(errors ? " errors\n" : " ok\n");
+			return response.toString();
+		}
+
+		private void error(StringBuilder response, AssembleError e) {
+			response.append(id).append(" error ").append(e.getRow()).append(' ').append(e.getCol())
+				.append(' ').append(e.getMessage()).append('\n');
+		}
+	}
+}
@@ -0,0 +1,67 @@
+package edu.unf.cnt3404.sicxe;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.unf.cnt3404.sicxe.parse.AssembleError;
+import edu.unf.cnt3404.sicxe.parse.Lexer;
+import edu.unf.cnt3404.sicxe.parse.Parser;
+import edu.unf.cnt3404.sicxe.parse.Scanner;
+import edu.unf.cnt3404.sicxe.syntax.Command;
+import edu.unf.cnt3404.sicxe.syntax.CommandTable;
+import edu.unf.cnt3404.sicxe.syntax.SymbolTable;
+
+//Times the work pass one does per command once it is parsed: turning every
+//command of a source file repeated many times into a row of a command table,
+//with and without the listing text. The commands are parsed once, up front.
+//Usage: DispatchBenchmark [file] [copies] [rounds]
+public class DispatchBenchmark {
+	public static void main(String[] args) throws IOException, AssembleError {
+		String fileName = args.length > 0 ? args[0] : "files/fig216.txt";
+		int copies = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+		int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+		byte[] file = Files.readAllBytes(Paths.get(fileName));
+		ByteArrayOutputStream scaled = new ByteArrayOutputStream();
+		for (int i = 0; i < copies; i++) {
+			scaled.write(file);
+			scaled.write('\n');
+		}
+		SymbolTable symbols = new SymbolTable();
+		Parser parser = new Parser(new Lexer(new Scanner(scaled.toByteArray()), symbols));
+		List<Command> commands = new ArrayList<>();
+		Command c;
+		while ((c = parser.next()) != null) {
+			commands.add(c);
+		}
+		System.out.printf("%s x %d: %d commands%n", fileName, copies, commands.size());
+
+		long bestListing = Long.MAX_VALUE;
+		long bestLean = Long.MAX_VALUE;
+		for (int round = 0; round < rounds; round++) {
+			long listing = time(commands, symbols, true);
+			long lean = time(commands, symbols, false);
+			System.out.printf("round %2d: with listing %6d ms, without %6d ms%n",
+				round, listing / 1000000, lean / 1000000);
+			bestListing = Math.min(bestListing, listing);
+			bestLean = Math.min(bestLean, lean);
+		}
+		System.out.printf("best:     with listing %6d ms, without %6d ms%n",
+			bestListing / 1000000, bestLean / 1000000);
+	}
+
+	//Returns the nanoseconds it took to add every command to a new table
+	private static long time(List<Command> commands, SymbolTable symbols, boolean listing) {
+		long start = System.nanoTime();
+		CommandTable table = new CommandTable();
+		table.setListing(listing);
+		for (Command c : commands) {
+			table.add(c, 0, symbols);
+		}
+		return System.nanoTime() - start;
+	}
+}
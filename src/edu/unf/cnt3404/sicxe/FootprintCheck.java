@@ -0,0 +1,42 @@
+package edu.unf.cnt3404.sicxe;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import edu.unf.cnt3404.sicxe.parse.AssembleError;
+import edu.unf.cnt3404.sicxe.syntax.CommandTable;
+
+//Runs pass one on a source file repeated many times, and measures the bytes
+//that the command table holds per row. Exits with status 1 if that is more
+//than the limit.
+//Usage: FootprintCheck [file] [copies] [limit]
+public class FootprintCheck {
+	public static void main(String[] args) throws IOException {
+		String fileName = args.length > 0 ? args[0] : "files/fig216.txt";
+		int copies = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+		int limit = args.length > 2 ? Integer.parseInt(args[2]) : 128;
+
+		byte[] file = Files.readAllBytes(Paths.get(fileName));
+		ByteArrayOutputStream scaled = new ByteArrayOutputStream();
+		for (int i = 0; i < copies; i++) {
+			scaled.write(file);
+			scaled.write('\n');
+		}
+		SicXeAssm assm = new SicXeAssm(scaled.toByteArray());
+		try {
+			assm.passOne();
+		} catch (AssembleError e) {
+			System.out.printf("Syntax error in pass 1 (Row %d, Col %d) %s%n", 
+				e.getRow(), e.getCol(), e.getMessage());
+		}
+		CommandTable table = assm.getCommandTable();
+		long perRow = table.getFootprint() / Math.max(1, table.size());
+		System.out.printf("%s x %d: %d rows, %d bytes, %d bytes per row (limit %d)%n", 
+			fileName, copies, table.size(), table.getFootprint(), perRow, limit);
+		if (perRow > limit) {
+			System.exit(1);
+		}
+	}
+}
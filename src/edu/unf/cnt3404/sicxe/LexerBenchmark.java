@@ -0,0 +1,169 @@
+package edu.unf.cnt3404.sicxe;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import edu.unf.cnt3404.sicxe.global.Global;
+import edu.unf.cnt3404.sicxe.global.Mnemonic;
+import edu.unf.cnt3404.sicxe.parse.AssembleError;
+import edu.unf.cnt3404.sicxe.parse.Lexer;
+import edu.unf.cnt3404.sicxe.parse.Scanner;
+import edu.unf.cnt3404.sicxe.syntax.Data;
+import edu.unf.cnt3404.sicxe.syntax.SymbolTable;
+import edu.unf.cnt3404.sicxe.syntax.data.AsciiData;
+import edu.unf.cnt3404.sicxe.syntax.data.HexData;
+
+//Compares lexing a source file repeated many times with the original lexer,
+//which classified each character with Character methods and built a token
+//object per token, against the Lexer skipping one byte at a time and skipping
+//eight bytes at a time.
+//Usage: LexerBenchmark [file] [copies] [rounds]
+public class LexerBenchmark {
+
+	private static final String SIMPLE_CHARACTERS = "#@,+-*/()";
+
+	//Keeps the tokens of the original lexer from being optimized away
+	private static int sink;
+
+	public static void main(String[] args) throws IOException, AssembleError {
+		String fileName = args.length > 0 ? args[0] : "files/fig216.txt";
+		int copies = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+		int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+		byte[] file = Files.readAllBytes(Paths.get(fileName));
+		ByteArrayOutputStream scaled = new ByteArrayOutputStream();
+		for (int i = 0; i < copies; i++) {
+			scaled.write(file);
+			scaled.write('\n');
+		}
+		byte[] source = scaled.toByteArray();
+		System.out.printf("%s x %d: %d bytes%n", fileName, copies, source.length);
+
+		for (int round = 0; round < rounds; round++) {
+			long original = timeOriginal(source);
+			long narrow = time(source, false);
+			long wide = time(source, true);
+			System.out.printf("round %2d: original %6d ms, byte at a time %6d ms, word at a time %6d ms%n",
+				round, original / 1000000, narrow / 1000000, wide / 1000000);
+		}
+	}
+
+	//Returns the nanoseconds it took the Lexer to lex the whole source
+	private static long time(byte[] source, boolean wide) {
+		long start = System.nanoTime();
+		Lexer lexer = new Lexer(new Scanner(source), new SymbolTable(), wide);
+		while (lexer.acceptAny());
+		return System.nanoTime() - start;
+	}
+
+	//Returns the nanoseconds it took the original lexer to lex the whole source
+	private static long timeOriginal(byte[] source) throws AssembleError {
+		long start = System.nanoTime();
+		Scanner scanner = new Scanner(source);
+		while (scanner.peek() != Scanner.EOS) {
+			sink += nextOriginal(scanner).hashCode();
+		}
+		return System.nanoTime() - start;
+	}
+
+	//A token of the original lexer
+	private static class Token {
+		private int offset;
+		private Object value;
+
+		public Token(int offset, Object value) {
+			this.offset = offset;
+			this.value = value;
+		}
+
+		@Override
+		public int hashCode() {
+			return offset ^ (value == null ? 0 : value.hashCode());
+		}
+	}
+
+	//The lexing loop of the original Lexer.next(). The scanner no longer counts
+	//rows and columns as it goes, so tokens keep their offset instead
+	private static Token nextOriginal(Scanner scanner) throws AssembleError {
+		char c;
+		int offset = scanner.getOffset();
+		if ((c = Character.toUpperCase(scanner.next())) == Scanner.EOS) {
+			throw new AssembleError(scanner, "Expected token not end of stream");
+		}
+		if (isWhitespace(c)) {
+			while (isWhitespace(c = scanner.peek())) {
+				scanner.next();
+			}
+			return new Token(offset, null);
+		}
+		if (isLineSeparator(c)) {
+			return new Token(offset, null);
+		}
+		if (Character.isDigit(c)) {
+			StringBuilder number = new StringBuilder();
+			number.append(c);
+			while (Character.isDigit(c = Character.toUpperCase(scanner.peek()))
+				&& c != Scanner.EOS) {
+				scanner.next();
+				number.append(c);
+			}
+			return new Token(offset, Integer.parseInt(number.toString()));
+		}
+		if (c == '.') {
+			StringBuilder comment = new StringBuilder();
+			while (!isLineSeparator(c = scanner.peek()) && c != Scanner.EOS) {
+				scanner.next();
+				comment.append(c);
+			}
+			return new Token(offset, comment.toString());
+		}
+		if (Character.isLetter(c) || c == '_') {
+			StringBuilder string = new StringBuilder();
+			if (scanner.peek() == '\'') {
+				scanner.next();
+				boolean isAscii = c == 'C';
+				while ((c = scanner.next()) != '\'' && c != Scanner.EOS) {
+					string.append(c);
+				}
+				if (c == Scanner.EOS) {
+					throw new AssembleError(scanner, "Expected ' not end of stream");
+				}
+				Data data;
+				if (isAscii) {
+					data = new AsciiData(string.toString());
+				} else if (string.length() % 2 != 0) {
+					throw new AssembleError(scanner, "Hex data must be of even legnth");
+				} else {
+					data = new HexData(string.toString());
+				}
+				return new Token(offset, data);
+			}
+			string.append(c);
+			while ((Character.isLetter(c = Character.toUpperCase(scanner.peek()))
+				|| Character.isDigit(c) || c == '_') && c != Scanner.EOS) {
+				scanner.next();
+				string.append(c);
+			}
+			String s = string.toString();
+			Mnemonic mnemonic = Global.OPTAB.get(s);
+			if (mnemonic != null) {
+				return new Token(offset, mnemonic);
+			}
+			return new Token(offset, s);
+		}
+		if (SIMPLE_CHARACTERS.contains(Character.toString(c))) {
+			return new Token(offset, c);
+		}
+		throw new AssembleError(scanner, "Bad character " + c);
+	}
+
+	private static boolean isLineSeparator(char c) {
+		return c == '\n' || c == '\r';
+	}
+
+	private static boolean isWhitespace(char c) {
+		return c == '\t' || c == ' ';
+	}
+}
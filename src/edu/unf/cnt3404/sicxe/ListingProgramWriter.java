@@ -1,74 +1,181 @@
 package edu.unf.cnt3404.sicxe;
 
 import java.io.PrintWriter;
+import java.util.Arrays;
 import java.util.Map;
 
+import edu.unf.cnt3404.sicxe.global.Format;
+import edu.unf.cnt3404.sicxe.global.Mnemonic;
 import edu.unf.cnt3404.sicxe.parse.AssembleError;
-import edu.unf.cnt3404.sicxe.syntax.Command;
+import edu.unf.cnt3404.sicxe.syntax.CommandTable;
 import edu.unf.cnt3404.sicxe.syntax.Program;
-import edu.unf.cnt3404.sicxe.syntax.command.Comment;
-import edu.unf.cnt3404.sicxe.syntax.command.WriteableCommand;
+import edu.unf.cnt3404.sicxe.syntax.SymbolTable;
 
-//Prints a listing file to a PrintWriter
+//Prints a listing file to a PrintWriter. Each row is rendered into a reusable
+//line buffer, copying the label, argument, and comment straight out of their
+//pools, and then the line goes to the PrintWriter in one write. The column
+//widths come from the Alignment, which is complete once pass one is done.
 public class ListingProgramWriter {
-	
+
+	private static final char[] HEX = {
+		'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'A', 'B', 'C', 'D', 'E', 'F'
+	};
+	private static final String NEWLINE = System.lineSeparator();
+
 	private Program program;
-	private Alignment align;
+	private CommandTable table;
 	private PrintWriter out;
 	private Map<Integer, AssembleError> errors;
-	
-	public ListingProgramWriter(Program program, Alignment align, 
+
+	//Column widths, without the spaces that follow the columns
+	private int lineWidth;
+	private int labelWidth;
+	private int nameWidth;
+	private int argumentWidth;
+
+	private char[] line = new char[256];
+	private int length;
+
+	public ListingProgramWriter(Program program, CommandTable table, Alignment align,
 			Map<Integer, AssembleError> errors, PrintWriter out) {
 		this.program = program;
-		this.align = align;
+		this.table = table;
 		this.errors = errors;
 		this.out = out;
+		lineWidth = align.getMaxLineLength();
+		labelWidth = align.getMaxLabelLength();
+		nameWidth = align.getMaxNameLength();
+		argumentWidth = align.getMaxArgumentLength();
 	}
-	
-	//Appends the given command to the listing
-	public void write(Command c) {
-		int line = c.getLine();
-		writeColumn(align.getMaxLineLength(), line);
-		if (c instanceof Comment) {
-			out.printf("%8s", ""); //Location counter place holder
-			writeColumn(align.getMaxNameLength(), "."); //Place a dot in the name column
-			out.print(" " + c.getComment());
+
+	//Appends row i of the table to the listing. Its object code is in code,
+	//starting at pos. error is the error that pass two found in the row, if any.
+	//Otherwise, the row shows the error logged for its line before pass two
+	public void write(int i, byte[] code, int pos, AssembleError error) {
+		length = 0;
+		int number = table.getLine(i);
+		appendNumber(number, lineWidth);
+		appendSpaces(4);
+		Mnemonic mnemonic = table.getMnemonic(i);
+		byte[] bytes = table.getBytes();
+		int commentStart = table.getTextStart(i) + Math.max(table.getArgumentLength(i), 0);
+		int commentLength = table.getCommentLength(i);
+		if (mnemonic == null) {
+			appendSpaces(8); //Location counter place holder
+			append('.'); //Place a dot in the name column
+			appendSpaces(nameWidth + 1); //Then a space before the comment
+			appendText(bytes, commentStart, commentLength);
 		} else {
-			out.printf("%04X    ", program.getLocationCounter()); //4 spaces 
-			writeColumn(align.getMaxLabelLength(), c.getLabel());
-			writeColumn(align.getMaxNameLength(), c.getName());
-			writeColumn(align.getMaxArgumentLength(), c.getArgument());
-			
+			appendHex(table.getLocation(i), 4);
+			appendSpaces(4);
+			int label = table.getLabel(i);
+			if (label >= 0) {
+				SymbolTable symbols = program.getSymbols();
+				appendColumn(symbols.getPool(), symbols.getStart(label), symbols.getLength(label), labelWidth);
+			} else {
+				appendColumn(null, 0, 0, labelWidth);
+			}
+			appendName(i, mnemonic);
+			appendColumn(bytes, table.getTextStart(i), Math.max(table.getArgumentLength(i), 0), argumentWidth);
+
 			//If there's an error, then don't output code
-			AssembleError e = errors.get(line);
-			if (e == null && c instanceof WriteableCommand) {
-				byte[] buffer = new byte[c.getSize()];
-				((WriteableCommand) c).write(buffer, 0);
-				for (byte b : buffer) {
-					out.printf("%02X", b);
+			AssembleError e = error != null ? error : errors.get(number);
+			if (e == null && table.isWriteable(i)) {
+				int size = table.getSize(i);
+				ensure(2 * size + 1);
+				for (int j = pos; j < pos + size; j++) {
+					line[length++] = HEX[(code[j] >> 4) & 0xF];
+					line[length++] = HEX[code[j] & 0xF];
 				}
-				out.print(" ");
+				append(' ');
 			}
-			if (c.getComment() != null) {
-				out.print("." + c.getComment());	
+			if (commentLength >= 0) {
+				append('.');
+				appendText(bytes, commentStart, commentLength);
 			}
 			//Then write the error
 			if (e != null) {
-				out.println();
-				out.printf("[ERROR] (Row %d, Col %d) %s", e.getRow(), e.getCol(), e.getMessage());
+				appendString(NEWLINE);
+				appendString("[ERROR] (Row " + e.getRow() + ", Col " + e.getCol() + ") " + e.getMessage());
 			}
 		}
-		out.println();
+		appendString(NEWLINE);
+		out.write(line, 0, length);
 	}
-	
-	private void writeColumn(int width, int i) {
-		String format = "%" + width + "d    "; //4 spaces
-		out.printf(format, i);
+
+	//The name column: the mnemonic, marked with + if extended
+	private void appendName(int i, Mnemonic mnemonic) {
+		Format format = mnemonic.getFormat();
+		if ((format == Format.FORMAT34 || format == Format.FORMAT34M)
+				&& (table.getFlags(i) & CommandTable.EXTENDED) != 0) {
+			append('+');
+		} else {
+			append(' ');
+		}
+		String name = mnemonic.getName();
+		appendString(name);
+		appendSpaces(nameWidth - name.length() - 1);
+		append(' ');
+	}
+
+	//Appends the text padded with spaces to width, and one more space. The
+	//bytes are Latin-1, like the pools they come from
+	private void appendColumn(byte[] bytes, int start, int count, int width) {
+		appendText(bytes, start, count);
+		appendSpaces(width - count);
+		append(' ');
 	}
-	
-	private void writeColumn(int width, String s) {
-		String format = "%-" + width + "s "; //1 space
-		if (s == null) s = ""; //Don't print null
-		out.printf(format, s);
+
+	//Appends count bytes as characters, or null if count is negative
+	private void appendText(byte[] bytes, int start, int count) {
+		if (count < 0) {
+			appendString("null");
+			return;
+		}
+		ensure(count);
+		for (int j = start; j < start + count; j++) {
+			line[length++] = (char)(bytes[j] & 0xFF);
+		}
+	}
+
+	//Appends the number right aligned to width digits
+	private void appendNumber(int number, int width) {
+		String digits = Integer.toString(number);
+		appendSpaces(width - digits.length());
+		appendString(digits);
+	}
+
+	//Appends the value in upper case hex, padded with zeros to width digits
+	private void appendHex(int value, int width) {
+		int digits = Math.max(width, (35 - Integer.numberOfLeadingZeros(value)) >> 2);
+		ensure(digits);
+		for (int shift = (digits - 1) * 4; shift >= 0; shift -= 4) {
+			line[length++] = HEX[(value >>> shift) & 0xF];
+		}
+	}
+
+	private void appendString(String s) {
+		ensure(s.length());
+		s.getChars(0, s.length(), line, length);
+		length += s.length();
+	}
+
+	private void appendSpaces(int count) {
+		if (count > 0) {
+			ensure(count);
+			Arrays.fill(line, length, length + count, ' ');
+			length += count;
+		}
+	}
+
+	private void append(char c) {
+		ensure(1);
+		line[length++] = c;
+	}
+
+	private void ensure(int count) {
+		if (length + count > line.length) {
+			line = Arrays.copyOf(line, Math.max(length + count, 2 * line.length));
+		}
 	}
 }
@@ -0,0 +1,73 @@
+package edu.unf.cnt3404.sicxe;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintWriter;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+import java.util.Random;
+
+import edu.unf.cnt3404.sicxe.object.ModificationRecord;
+import edu.unf.cnt3404.sicxe.object.RecordEncoder;
+import edu.unf.cnt3404.sicxe.object.TextRecord;
+
+//Compares writing text and modification records with printf, as the object
+//program used to, against the RecordEncoder, and checks both give the same bytes.
+//Usage: ObjectBenchmark [records] [rounds]
+public class ObjectBenchmark {
+	public static void main(String[] args) {
+		int records = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+		int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+		//Full text records of random code, each followed by a modification record
+		Random random = new Random(1);
+		byte[] code = new byte[30 * records];
+		random.nextBytes(code);
+		String[] symbols = {"BUFFER", "RDREC", "LENGTH", "WRREC", "A"};
+
+		byte[] reference = null;
+		byte[] encoded = null;
+		for (int round = 0; round < rounds; round++) {
+			ByteArrayOutputStream printed = new ByteArrayOutputStream(64 * records);
+			long start = System.nanoTime();
+			PrintWriter writer = new PrintWriter(printed);
+			for (int i = 0; i < records; i++) {
+				writer.print('T');
+				writer.printf("%06X", 30 * i);
+				writer.printf("%02X", 30);
+				for (int j = 0; j < 30; j++) {
+					writer.printf("%02X", code[30 * i + j]);
+				}
+				writer.println();
+				writer.print('M');
+				writer.printf("%06X", 30 * i + 1);
+				writer.printf("%02X", 5);
+				writer.print('+');
+				writer.printf("%-6s", symbols[i % symbols.length]);
+				writer.println();
+			}
+			writer.flush();
+			long printf = System.nanoTime() - start;
+
+			ByteArrayOutputStream channel = new ByteArrayOutputStream(64 * records);
+			start = System.nanoTime();
+			RecordEncoder encoder = new RecordEncoder(Channels.newChannel(channel));
+			for (int i = 0; i < records; i++) {
+				TextRecord text = new TextRecord(30 * i);
+				text.add(code, 30 * i, 30);
+				text.write(encoder);
+				new ModificationRecord(30 * i + 1, 5, symbols[i % symbols.length], true).write(encoder);
+			}
+			encoder.flush();
+			long bytes = System.nanoTime() - start;
+
+			reference = printed.toByteArray();
+			encoded = channel.toByteArray();
+			System.out.printf("round %2d: printf %6d ms, encoder %6d ms (%d bytes)%n",
+				round, printf / 1000000, bytes / 1000000, encoded.length);
+		}
+		if (!Arrays.equals(reference, encoded)) {
+			System.out.println("The encoder's bytes differ from printf's!");
+			System.exit(1);
+		}
+	}
+}
@@ -1,62 +1,97 @@
 package edu.unf.cnt3404.sicxe;
 
-import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.List;
 
 import edu.unf.cnt3404.sicxe.object.DefineRecord;
 import edu.unf.cnt3404.sicxe.object.ModificationRecord;
+import edu.unf.cnt3404.sicxe.object.RecordEncoder;
 import edu.unf.cnt3404.sicxe.object.ReferRecord;
 import edu.unf.cnt3404.sicxe.object.TextRecord;
-import edu.unf.cnt3404.sicxe.syntax.Command;
-import edu.unf.cnt3404.sicxe.syntax.Expression;
+import edu.unf.cnt3404.sicxe.syntax.CommandTable;
 import edu.unf.cnt3404.sicxe.syntax.Program;
-import edu.unf.cnt3404.sicxe.syntax.Symbol;
-import edu.unf.cnt3404.sicxe.syntax.command.ModifiableCommand;
-import edu.unf.cnt3404.sicxe.syntax.command.WriteableCommand;
-import edu.unf.cnt3404.sicxe.syntax.expression.Term;
+import edu.unf.cnt3404.sicxe.syntax.SymbolTable;
 
-//Prints an object program to a PrintWriter.
+//Prints an object program to a RecordEncoder.
 public class ObjectProgramWriter {
 	
 	private Program program;
-	private PrintWriter out;
+	private CommandTable table;
+	private RecordEncoder out;
 	private List<ModificationRecord> mods = new ArrayList<>();
 	
 	private TextRecord text; //Current text record
+	//Number of text records begun so far
+	private int textRecords;
+	//Where the header record's size and the define records' values are
+	private long sizePosition;
+	private long[] valuePositions;
 	
-	public ObjectProgramWriter(Program program, PrintWriter out) {
+	public ObjectProgramWriter(Program program, CommandTable table, RecordEncoder out) {
 		this.program = program;
+		this.table = table;
 		this.out = out;
 	}
 	
 	public void writeHeaderReferAndDefineRecords() {
+		writeHeaderReferAndDefineRecords(false);
+	}
+	
+	//Writes the header, define, and refer records before the size of the 
+	//program and the values of its definitions are known, with zeros in their 
+	//place, for patchHeaderAndDefineRecords() to fill in
+	public void reserveHeaderReferAndDefineRecords() {
+		writeHeaderReferAndDefineRecords(true);
+	}
+	
+	//Fills in the records that were reserved. Returns false if a value needs
+	//more digits than its place has
+	public boolean patchHeaderAndDefineRecords() {
+		boolean fits = out.patchHex(sizePosition, program.getSize(), 6);
+		SymbolTable symbols = program.getSymbols();
+		int[] defs = program.getExternalDefinitions();
+		for (int j = 0; j < defs.length; j++) {
+			fits &= out.patchHex(valuePositions[j], symbols.getValue(defs[j]), 6);
+		}
+		return fits;
+	}
+	
+	private void writeHeaderReferAndDefineRecords(boolean reserve) {
 		//Write the header record
-		out.print('H');
-		out.printf("%-6s", program.getName());
-		out.printf("%06X", program.getStart());
-		out.printf("%06X", program.getSize());
-		out.println();
+		out.put('H');
+		out.putName(program.getName(), 6);
+		out.putHex(program.getStart(), 6);
+		sizePosition = out.position();
+		out.putHex(reserve ? 0 : program.getSize(), 6);
+		out.newline();
 		//Write define records
+		SymbolTable symbols = program.getSymbols();
 		DefineRecord define = null;
-		for (Symbol def : program.getExternalDefinitions()) {
+		int[] defs = reserve ? program.getDeclaredDefinitions() : program.getExternalDefinitions();
+		valuePositions = new long[defs.length];
+		int written = 0;
+		for (int def : defs) {
+			String name = symbols.getName(def);
+			int value = reserve ? 0 : symbols.getValue(def);
 			if (define == null) {
 				define = new DefineRecord();
 			}
-			if (!define.add(def)) {
-				define.write(out);
+			if (!define.add(name, value)) {
+				define.write(out, valuePositions, written);
+				written += define.size();
 				define = new DefineRecord();
-				define.add(def); //This call should always succeed
+				define.add(name, value); //This call should always succeed
 			}
 		}
 		//Write the final Define record
 		if (define != null) {
-			define.write(out);
+			define.write(out, valuePositions, written);
 		}
 		
 		//Write refer records
 		ReferRecord refer = null;
-		for (String ref : program.getExternalReferences()) {
+		for (int id : program.getExternalReferences()) {
+			String ref = symbols.getName(id);
 			if (refer == null) {
 				refer = new ReferRecord();
 			}
@@ -72,34 +107,52 @@ public class ObjectProgramWriter {
 		}
 	}
 	
-	//Writes the command to the object program
-	public void write(Command c) {
+	//Writes row i of the table to the object program. Its object code
+	//is in code, starting at pos
+	public void write(int i, byte[] code, int pos) {
+		boolean writeable = table.isWriteable(i);
 		//Resw/Resb and any directive that increments location counter (size > 0)
-		//But does not write code (not a WriteableCommand)
-		if (c.getSize() > 0 && !(c instanceof WriteableCommand)) {
+		//But does not write code (not writeable)
+		if (table.getSize(i) > 0 && !writeable) {
 			writeCurrentTextRecord();
 		}
 		
-		if (c instanceof WriteableCommand) {
-			write((WriteableCommand) c);
-		}
-		
-		if (c instanceof ModifiableCommand) {
-			modify((ModifiableCommand) c);
+		if (writeable) {
+			write(i, code, pos, table.getSize(i));
 		}
 	}
 	
-	//Adds the command to the current text record, writing the text record if required
-	private void write(WriteableCommand c) {
+	//Adds the code to the current text record, writing the text record if required
+	private void write(int i, byte[] code, int pos, int size) {
 		if (text == null) {
-			text = new TextRecord(program.getLocationCounter());
+			text = new TextRecord(table.getLocation(i));
+			textRecords++;
 		}
 		
-		if (!text.add(c)) {
+		if (!text.add(code, pos, size)) {
 			text.write(out);
-			text = new TextRecord(program.getLocationCounter());
-			text.add(c); //Will always succeed
+			text = new TextRecord(table.getLocation(i));
+			textRecords++;
+			text.add(code, pos, size); //Will always succeed
+		}
+	}
+	
+	//Gets the number of the text record that the last row written went to
+	public int getTextRecord() {
+		return textRecords;
+	}
+	
+	//Overwrites the code of a row that was written to the given text record,
+	//at the location, with length bytes of code starting at pos. If that record
+	//is still the current one, the code goes into it, and otherwise it goes
+	//into a text record of its own, which a loader applies over the earlier one
+	public void patch(int record, int location, byte[] code, int pos, int length) {
+		if (text != null && record == textRecords && text.patch(location, code, pos, length)) {
+			return;
 		}
+		TextRecord patch = new TextRecord(location);
+		patch.add(code, pos, length);
+		patch.write(out);
 	}
 	
 	//Forces the object program to write the current text record
@@ -110,31 +163,10 @@ public class ObjectProgramWriter {
 		}
 	}
 	
-	//Adds modification records associated with the expression in the
-	//given command; those records will be appended at the end
-	private void modify(ModifiableCommand c) {
-		Expression expr = c.getExpression();
-		
-		//Of the mod record
-		int start = program.getLocationCounter() + c.getOffset();
-		int stride = c.getStride();
-		
-		//Make mod records for external symbols. Period.
-		for (Term term : expr.getExternalSymbols()) {
-			mods.add(new ModificationRecord(start, stride, term.getSymbol().getName(), term.isPositive()));
-		}
-		
-		//Number of program relative modification records equal to |netSign|. 
-		//The signs of these records are equal to sign(netSign).
-		if (c.isAbsolute()) {
-			int netSign = expr.getNetSign();
-			int abs = Math.abs(netSign); 
-			//If >1, then there would require multiple program relative modification records
-			//Is this even allowed? 
-			for (int i = 0; i < abs; i++) {
-				mods.add(new ModificationRecord(start, stride, program.getName(), netSign > 0));
-			}
-		}
+	//Adds a modification record of the row that was just written; 
+	//the records will be appended at the end
+	public void modify(ModificationRecord mod) {
+		mods.add(mod);
 	}
 	
 	public void writeModificationAndEndRecords() {
@@ -146,10 +178,10 @@ public class ObjectProgramWriter {
 			}
 		}
 		
-		out.print('E');
+		out.put('E');
 		if (program.isRunnable()) {
-			out.printf("%06X", program.getFirst());
+			out.putHex(program.getFirst(), 6);
 		}
-		out.println();
+		out.newline();
 	}
 }
@@ -0,0 +1,412 @@
+package edu.unf.cnt3404.sicxe;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeMap;
+
+import edu.unf.cnt3404.sicxe.global.Global;
+import edu.unf.cnt3404.sicxe.object.ModificationRecord;
+import edu.unf.cnt3404.sicxe.object.RecordEncoder;
+import edu.unf.cnt3404.sicxe.parse.AssembleError;
+import edu.unf.cnt3404.sicxe.parse.Parser;
+import edu.unf.cnt3404.sicxe.syntax.Command;
+import edu.unf.cnt3404.sicxe.syntax.CommandTable;
+import edu.unf.cnt3404.sicxe.syntax.Evaluator;
+import edu.unf.cnt3404.sicxe.syntax.Program;
+import edu.unf.cnt3404.sicxe.syntax.SymbolTable;
+
+//Assembles the source in a single pass, straight to the object program, so a
+//source of any size streams through without its rows being kept. Each command
+//is defined by the rules of pass one as soon as it is parsed, and assembled
+//right away. A row that names a symbol not defined yet is written as zeros and
+//copied to a table of pending rows, where it joins the fix-up chain of that
+//symbol. Once the symbol is defined, the rows of its chain are assembled and
+//patched in (see ObjectProgramWriter.patch), or move on to the chain of the
+//next symbol they wait for. Rows that need the contents of a BASE whose symbol
+//was not defined yet, and rows whose symbols never are, are assembled at the end.
+//The header and define records are written with zeros once the code starts,
+//and filled in at the end, so the object program has to be a file. Modification
+//records are held until the end, and written in row order.
+//Once its patch records are applied, the object program is the one the two
+//passes write. For that, EXTDEF and EXTREF have to come before the code, and an
+//EXTREF cannot name a symbol that is defined already, which are errors here.
+//There is no listing.
+public class OnePass {
+
+	//Rows in the pending table, at least, before the rows that are done are dropped
+	private static final int COMPACT = 1024;
+	//States of a pending row that is in no chain: assembled, or held until the end
+	private static final int DONE = -1;
+	private static final int HELD = -2;
+
+	private Program program;
+	private AssembleErrorLogger logger;
+	private FileChannel channel;
+	private RecordEncoder encoder;
+	private ObjectProgramWriter object;
+	//Holds only the row being assembled
+	private CommandTable table;
+	private PassOne pass;
+	private Assembler assembler;
+	private Evaluator evaluator;
+	//Object code of one row
+	private byte[] code = new byte[4];
+	private boolean header;
+
+	//Rows that waited for a symbol, with what each waits for (a symbol id,
+	//DONE, or HELD), the next row in its chain, the base register it saw,
+	//and the text record it was written to
+	private CommandTable pending = new CommandTable();
+	private Assembler pendingAssembler;
+	private int[] waiting = new int[64];
+	private int[] next = new int[64];
+	private int[] epochs = new int[64];
+	private int[] records = new int[64];
+	//Pending rows that are not done
+	private int waitingCount;
+	//The first row in the fix-up chain of each symbol, or -1
+	private int[] heads = new int[0];
+
+	//The contents of the base register after each BASE or NOBASE, in order,
+	//or less than 0 if disabled. If a BASE named a symbol not defined yet,
+	//baseRows holds it as a pending row, and otherwise -1
+	private int[] bases = new int[8];
+	private int[] baseRows = new int[8];
+	private int epoch;
+	//The END row, pending until the end
+	private int endRow = -1;
+
+	//Modification records of the rows, by line
+	private TreeMap<Integer, List<ModificationRecord>> mods = new TreeMap<>();
+
+	public OnePass(Program program, CommandTable table, AssembleErrorLogger logger, FileChannel obj) {
+		this.program = program;
+		this.table = table;
+		this.logger = logger;
+		channel = obj;
+		table.setListing(false);
+		pending.setListing(false);
+		pass = new PassOne(program, table, null, logger, null);
+		assembler = new Assembler(program, table);
+		pendingAssembler = new Assembler(program, pending);
+		evaluator = new Evaluator(program.getSymbols());
+		encoder = new RecordEncoder(obj);
+		object = new ObjectProgramWriter(program, table, encoder);
+		bases[0] = program.getBase();
+		baseRows[0] = -1;
+	}
+
+	//Parses and assembles the commands one at a time, then finishes the object
+	//program. A syntax error stops the parsing, but the object program is still
+	//finished with the rows before it
+	public void run(Parser parser) throws AssembleError {
+		try {
+			Command c;
+			while ((c = parser.next()) != null) {
+				PassOne.checkInterrupt();
+				if (c.getKind() != Command.KIND_COMMENT) {
+					add(c);
+				}
+			}
+			pass.finish(parser.getRow(), parser.getCol());
+		} finally {
+			finish();
+		}
+	}
+
+	//Defines and assembles the command
+	private void add(Command c) throws AssembleError {
+		if (pending.size() >= COMPACT && 2 * waitingCount <= pending.size()) {
+			compact();
+		}
+		SymbolTable symbols = program.getSymbols();
+		int[] symbolList = PassOne.getSymbolList(c);
+		String problem = null;
+		if (symbolList != null && header) {
+			problem = "EXTDEF and EXTREF must come before the code in one pass";
+		} else if (c.getKind() == Command.KIND_EXTREF) {
+			for (int ref : symbolList) {
+				if (symbols.isDefined(ref) && !symbols.isExternal(ref)) {
+					problem = "EXTREF of " + symbols.getName(ref) + " after its definition in one pass";
+				}
+			}
+		}
+
+		table.clear();
+		int i = pass.add(c);
+		if (problem != null) {
+			logger.log(table.getLine(i), 1, problem);
+		}
+		if (!header && table.getSize(i) > 0) {
+			object.reserveHeaderReferAndDefineRecords();
+			header = true;
+		}
+		int ordinal = table.getOrdinal(i);
+		if (Assembler.isStateDirective(ordinal)) {
+			state(i);
+		} else if (table.isWriteable(i)) {
+			assemble(i);
+		} else {
+			object.write(i, code, 0);
+		}
+
+		//The rows that waited for the symbols the row defined
+		if (table.getLabel(i) >= 0) {
+			resolve(table.getLabel(i));
+		}
+		if (c.getKind() == Command.KIND_EXTREF) {
+			for (int ref : symbolList) {
+				resolve(ref);
+			}
+		}
+	}
+
+	//Applies END, BASE, or NOBASE. The END row and a BASE that names a symbol
+	//not defined yet are held until the end
+	private void state(int i) {
+		int ordinal = table.getOrdinal(i);
+		if (ordinal == Global.END) {
+			endRow = hold(i, HELD);
+		} else if (ordinal == Global.BASE && getUndefinedSymbol(table, i) >= 0) {
+			addEpoch(-1, hold(i, HELD));
+		} else {
+			//If the expression cannot be evaluated, the state does not change
+			program.setBase(bases[epoch]);
+			int row = -1;
+			try {
+				assembler.assembleStateDirective(i);
+			} catch (AssembleError e) {
+				logger.log(e);
+				row = baseRows[epoch];
+			}
+			addEpoch(program.getBase(), row);
+		}
+	}
+
+	//Writes the object code of a row, or zeros in its place if it has to wait
+	private void assemble(int i) {
+		int size = table.getSize(i);
+		if (code.length < size) {
+			code = new byte[size];
+		}
+		if (table.isEncoded(i)) {
+			table.getEarlyCode(i, code, 0);
+			object.write(i, code, 0);
+			return;
+		}
+		int symbol = getUndefinedSymbol(table, i);
+		if (symbol < 0 && assemble(assembler, table, i, epoch, false)) {
+			object.write(i, code, 0);
+			return;
+		}
+		Arrays.fill(code, 0, size, (byte)0);
+		object.write(i, code, 0);
+		int r = hold(i, symbol < 0 ? HELD : symbol);
+		records[r] = object.getTextRecord();
+	}
+
+	//Assembles row i of the table into code, with the base register of the
+	//epoch, and keeps its modification records. Returns false if the row has
+	//to wait for the base register, which it does unless last is set; an error
+	//is logged otherwise
+	private boolean assemble(Assembler assembler, CommandTable table, int i, int epoch, boolean last) {
+		boolean baseKnown = last || baseRows[epoch] < 0;
+		try {
+			assembler.assemble(i, baseKnown ? bases[epoch] : -1, code, 0);
+		} catch (AssembleError e) {
+			if (!baseKnown) {
+				return false;
+			}
+			logger.log(e);
+			return true;
+		}
+		if (table.isModifiable(i)) {
+			List<ModificationRecord> rowMods = new ArrayList<>();
+			assembler.modify(i, rowMods);
+			if (!rowMods.isEmpty()) {
+				mods.put(table.getLine(i), rowMods);
+			}
+		}
+		return true;
+	}
+
+	//Assembles the rows in the fix-up chain of the symbol, which was just defined
+	private void resolve(int symbol) {
+		if (symbol >= heads.length) {
+			return;
+		}
+		int r = heads[symbol];
+		heads[symbol] = -1;
+		while (r >= 0) {
+			int following = next[r];
+			int undefined = getUndefinedSymbol(pending, r);
+			if (undefined >= 0) {
+				chain(r, undefined);
+			} else if (assemble(pendingAssembler, pending, r, epochs[r], false)) {
+				patch(r);
+			} else {
+				waiting[r] = HELD;
+			}
+			r = following;
+		}
+	}
+
+	//Writes the code of pending row r over its zeros
+	private void patch(int r) {
+		object.patch(records[r], pending.getLocation(r), code, 0, pending.getSize(r));
+		waiting[r] = DONE;
+		waitingCount--;
+	}
+
+	//Assembles what waited until the end, and writes the rest of the object program
+	private void finish() {
+		//A cancelled assembly is not finished
+		if (Thread.currentThread().isInterrupted()) {
+			return;
+		}
+		if (!header) {
+			object.reserveHeaderReferAndDefineRecords();
+			header = true;
+		}
+		//Every symbol that will be defined is, so the held BASE rows are applied in order
+		for (int e = 1; e <= epoch; e++) {
+			int r = baseRows[e];
+			if (r < 0) {
+				continue;
+			}
+			if (r == baseRows[e - 1]) {
+				bases[e] = bases[e - 1];
+				continue;
+			}
+			program.setBase(bases[e - 1]);
+			try {
+				pendingAssembler.assembleStateDirective(r);
+			} catch (AssembleError ex) {
+				logger.log(ex);
+			}
+			bases[e] = program.getBase();
+		}
+		if (endRow >= 0) {
+			try {
+				pendingAssembler.assembleStateDirective(endRow);
+			} catch (AssembleError e) {
+				logger.log(e);
+			}
+		}
+		for (int r = 0; r < pending.size(); r++) {
+			int ordinal = pending.getOrdinal(r);
+			if (waiting[r] != DONE && !Assembler.isStateDirective(ordinal)) {
+				assemble(pendingAssembler, pending, r, epochs[r], true);
+				patch(r);
+			}
+		}
+
+		for (List<ModificationRecord> rowMods : mods.values()) {
+			for (ModificationRecord mod : rowMods) {
+				object.modify(mod);
+			}
+		}
+		object.writeModificationAndEndRecords();
+		if (!logger.hasErrors() && !object.patchHeaderAndDefineRecords()) {
+			logger.log(1, 1, "Program size or definition does not fit its record");
+		}
+		//As with the two passes, an object program with errors is left empty
+		if (!logger.hasErrors()) {
+			encoder.flush();
+		} else {
+			try {
+				channel.truncate(0);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	//Copies row i to the pending rows, where it waits for the symbol, or is
+	//held. Returns the pending row
+	private int hold(int i, int symbol) {
+		int r = pending.add(table, i);
+		if (r == waiting.length) {
+			waiting = Arrays.copyOf(waiting, 2 * r);
+			next = Arrays.copyOf(next, 2 * r);
+			epochs = Arrays.copyOf(epochs, 2 * r);
+			records = Arrays.copyOf(records, 2 * r);
+		}
+		epochs[r] = epoch;
+		waitingCount++;
+		if (symbol >= 0) {
+			chain(r, symbol);
+		} else {
+			waiting[r] = HELD;
+		}
+		return r;
+	}
+
+	//Adds pending row r to the fix-up chain of the symbol
+	private void chain(int r, int symbol) {
+		if (symbol >= heads.length) {
+			int length = heads.length;
+			heads = Arrays.copyOf(heads, Math.max(symbol + 1, 2 * length));
+			Arrays.fill(heads, length, heads.length, -1);
+		}
+		waiting[r] = symbol;
+		next[r] = heads[symbol];
+		heads[symbol] = r;
+	}
+
+	private void addEpoch(int base, int row) {
+		epoch++;
+		if (epoch == bases.length) {
+			bases = Arrays.copyOf(bases, 2 * epoch);
+			baseRows = Arrays.copyOf(baseRows, 2 * epoch);
+		}
+		bases[epoch] = base;
+		baseRows[epoch] = row;
+	}
+
+	//Drops the rows that are done from the pending rows, and renumbers the rest
+	private void compact() {
+		CommandTable kept = new CommandTable();
+		kept.setListing(false);
+		int[] moved = new int[pending.size()];
+		Arrays.fill(heads, -1);
+		for (int r = 0; r < pending.size(); r++) {
+			if (waiting[r] == DONE) {
+				moved[r] = -1;
+				continue;
+			}
+			int k = kept.add(pending, r);
+			moved[r] = k;
+			epochs[k] = epochs[r];
+			records[k] = records[r];
+			if (waiting[r] >= 0) {
+				chain(k, waiting[r]);
+			} else {
+				waiting[k] = waiting[r];
+			}
+		}
+		for (int e = 0; e <= epoch; e++) {
+			if (baseRows[e] >= 0) {
+				baseRows[e] = moved[baseRows[e]];
+			}
+		}
+		if (endRow >= 0) {
+			endRow = moved[endRow];
+		}
+		pending = kept;
+		pendingAssembler = new Assembler(program, pending);
+	}
+
+	//Gets the first symbol that row i names and that is not defined yet, or -1
+	private int getUndefinedSymbol(CommandTable table, int i) {
+		int e = table.getExpression(i);
+		if (e < 0) {
+			return -1;
+		}
+		return evaluator.getUndefinedSymbol(table.getCode(), table.getCodeStart(e), table.getCodeEnd(e));
+	}
+}
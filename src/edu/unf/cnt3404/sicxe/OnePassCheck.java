@@ -0,0 +1,133 @@
+package edu.unf.cnt3404.sicxe;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import edu.unf.cnt3404.sicxe.parse.AssembleError;
+
+//Assembles each source file in two passes and in one pass, and checks that
+//the object programs are the same once their patch records are applied: a text
+//record that lies within an earlier text record is written over it, and
+//dropped. Exits with status 1 if any file differs.
+//Usage: OnePassCheck [file...], by default the .txt files in files/
+public class OnePassCheck {
+	public static void main(String[] args) throws IOException {
+		List<Path> files = new ArrayList<>();
+		for (String arg : args) {
+			files.add(Paths.get(arg));
+		}
+		if (files.isEmpty()) {
+			try (DirectoryStream<Path> dir = Files.newDirectoryStream(Paths.get("files"), "*.txt")) {
+				dir.forEach(files::add);
+			}
+			files.sort(null);
+		}
+		boolean same = true;
+		for (Path file : files) {
+			byte[] source = Files.readAllBytes(file);
+			List<String> two = normalize(twoPasses(source));
+			List<String> one = onePass(source);
+			int patches = one.size();
+			one = normalize(one);
+			patches -= one.size();
+			if (two.equals(one)) {
+				System.out.printf("%s: same, %d records, %d patch records%n", file, two.size(), patches);
+			} else {
+				System.out.printf("%s: DIFFERENT%n", file);
+				same = false;
+			}
+		}
+		if (!same) {
+			System.exit(1);
+		}
+	}
+
+	private static List<String> twoPasses(byte[] source) {
+		SicXeAssm assm = new SicXeAssm(source);
+		assm.setListing(false);
+		try {
+			assm.passOne();
+		} catch (AssembleError e) {
+			//Pass two still runs, as it does for a file
+		}
+		ByteArrayOutputStream obj = new ByteArrayOutputStream();
+		assm.passTwo(null, Channels.newChannel(obj));
+		return lines(obj.toByteArray());
+	}
+
+	private static List<String> onePass(byte[] source) throws IOException {
+		Path obj = Files.createTempFile("onepass", ".obj");
+		try {
+			try (FileChannel channel = FileChannel.open(obj, StandardOpenOption.WRITE)) {
+				new SicXeAssm(source).onePass(channel);
+			} catch (AssembleError e) {
+				//The object program is finished anyway
+			}
+			return lines(Files.readAllBytes(obj));
+		} finally {
+			Files.delete(obj);
+		}
+	}
+
+	private static List<String> lines(byte[] bytes) {
+		String text = new String(bytes, StandardCharsets.US_ASCII);
+		return text.isEmpty() ? new ArrayList<>() : new ArrayList<>(Arrays.asList(text.split("\r?\n")));
+	}
+
+	//Applies every text record that lies within an earlier one to the latest
+	//such record, and drops it
+	private static List<String> normalize(List<String> records) {
+		List<String> result = new ArrayList<>();
+		//Text records kept, by start: their index in result and their code
+		Map<Integer, Integer> indexes = new TreeMap<>();
+		List<byte[]> codes = new ArrayList<>();
+		TreeMap<Integer, Integer> starts = new TreeMap<>();
+		for (String record : records) {
+			if (!record.startsWith("T")) {
+				result.add(record);
+				codes.add(null);
+				continue;
+			}
+			int start = Integer.parseInt(record.substring(1, 7), 16);
+			byte[] code = new byte[Integer.parseInt(record.substring(7, 9), 16)];
+			for (int j = 0; j < code.length; j++) {
+				code[j] = (byte)Integer.parseInt(record.substring(9 + 2 * j, 11 + 2 * j), 16);
+			}
+			Map.Entry<Integer, Integer> earlier = starts.floorEntry(start);
+			if (earlier != null) {
+				byte[] target = codes.get(earlier.getValue());
+				int offset = start - earlier.getKey();
+				if (offset + code.length <= target.length) {
+					System.arraycopy(code, 0, target, offset, code.length);
+					continue;
+				}
+			}
+			starts.put(start, result.size());
+			indexes.put(result.size(), start);
+			result.add(record);
+			codes.add(code);
+		}
+		for (Map.Entry<Integer, Integer> text : indexes.entrySet()) {
+			byte[] code = codes.get(text.getKey());
+			StringBuilder record = new StringBuilder(String.format("T%06X%02X", text.getValue(), code.length));
+			for (byte b : code) {
+				record.append(String.format("%02X", b));
+			}
+			result.set(text.getKey(), record.toString());
+		}
+		return result;
+	}
+}
@@ -0,0 +1,463 @@
+package edu.unf.cnt3404.sicxe;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import edu.unf.cnt3404.sicxe.global.Global;
+import edu.unf.cnt3404.sicxe.parse.AssembleError;
+import edu.unf.cnt3404.sicxe.parse.Lexer;
+import edu.unf.cnt3404.sicxe.parse.Parser;
+import edu.unf.cnt3404.sicxe.parse.Scanner;
+import edu.unf.cnt3404.sicxe.syntax.Command;
+import edu.unf.cnt3404.sicxe.syntax.CommandTable;
+import edu.unf.cnt3404.sicxe.syntax.Evaluator;
+import edu.unf.cnt3404.sicxe.syntax.IntermediateFile;
+import edu.unf.cnt3404.sicxe.syntax.Program;
+import edu.unf.cnt3404.sicxe.syntax.SymbolTable;
+import edu.unf.cnt3404.sicxe.syntax.command.directive.ExtdefDirective;
+import edu.unf.cnt3404.sicxe.syntax.command.directive.ExtrefDirective;
+
+//Performs pass one. Every command becomes a row of the command table, and then
+//the rows are defined in order: the location counter moves, labels are defined,
+//and START, END, ORG, EXTDEF, and EXTREF take effect.
+//The source is either parsed on the calling thread, or cut at line boundaries
+//into chunks that are parsed in parallel on a ForkJoinPool. A chunk interns its
+//symbols into a table of its own, so parsers share nothing. The chunks are then
+//stitched in order: their symbols are interned into the program's table, their
+//rows are appended with the ids replaced, and the rows are defined exactly as if
+//the source had been parsed one command at a time.
+//Without a listing, there is no alignment to track, and comments become no rows.
+//As soon as a row is defined, it is assembled if its object code is already
+//certain (see Assembler.assembleEarly), so pass two only copies it. Should a
+//symbol be defined again, which is an error, the code of earlier rows might be
+//wrong, so from then on no row keeps its code, and pass two assembles them all.
+public class PassOne {
+
+	//Source bytes per chunk, at least. A chunk ends after a newline
+	private static final int CHUNK = 1 << 16;
+	//Commands and names in flight between the parser thread and the defining thread
+	private static final int RING = 1024;
+
+	private Program program;
+	private CommandTable table;
+	//Null without a listing
+	private Alignment align;
+	private AssembleErrorLogger logger;
+	//Null unless the rows are spilled
+	private IntermediateFile spill;
+	private Evaluator evaluator;
+	private Assembler assembler;
+	//Whether the rows assembled early keep their code
+	private boolean earlyCode = true;
+
+	private boolean beforeStart = true;
+	private boolean afterEnd = false;
+	//The location counter as pass two sees it. Pass two starts at the
+	//start address, and never resets to it
+	private int location = 0;
+
+	public PassOne(Program program, CommandTable table, Alignment align, AssembleErrorLogger logger,
+			IntermediateFile spill) {
+		this.program = program;
+		this.table = table;
+		this.align = align;
+		this.logger = logger;
+		this.spill = spill;
+		evaluator = new Evaluator(program.getSymbols());
+		assembler = new Assembler(program, table);
+	}
+	
+	//Whether pass two may use the code of the rows that were assembled early
+	public boolean hasEarlyCode() {
+		return earlyCode;
+	}
+
+	//Parses the commands one at a time, defining each one
+	public void run(Parser parser) throws AssembleError {
+		Command c;
+		while ((c = parser.next()) != null) {
+			checkInterrupt();
+			if (align == null && c.getKind() == Command.KIND_COMMENT) {
+				continue;
+			}
+			if (spill != null && table.size() == IntermediateFile.BLOCK) {
+				spill.write(table);
+			}
+			add(c);
+		}
+		finish(parser.getRow(), parser.getCol());
+	}
+
+	//Stops the assembly if its thread was interrupted, which is how the
+	//daemon cancels a request
+	static void checkInterrupt() {
+		if (Thread.currentThread().isInterrupted()) {
+			throw new CancellationException();
+		}
+	}
+
+	//Adds the command as the next row of the table, and defines it.
+	//Returns the row
+	int add(Command c) throws AssembleError {
+		int i = table.add(c, location, program.getSymbols());
+		define(i, getSymbolList(c));
+		return i;
+	}
+
+	//Parses the source on a thread of its own, which hands the commands to this
+	//thread through a ring buffer, while this thread defines them. The parser
+	//interns names into a table of its own, and publishes every new name ahead
+	//of the first command that uses it. This thread interns the names into the
+	//program's table in the same order, so both tables give the same ids
+	public void pipeline(Scanner scanner) throws AssembleError {
+		SymbolTable symbols = program.getSymbols();
+		if (symbols.size() > 0) {
+			//The ids would not match
+			run(new Parser(new Lexer(scanner, symbols)));
+			return;
+		}
+		SymbolTable local = new SymbolTable();
+		Parser parser = new Parser(new Lexer(scanner, local));
+		RingBuffer<Object> ring = new RingBuffer<>(RING);
+		AssembleError[] error = new AssembleError[1];
+		boolean comments = align != null;
+		Thread thread = new Thread(() -> {
+			int published = 0;
+			try {
+				Command c;
+				while ((c = parser.next()) != null) {
+					for (; published < local.size(); published++) {
+						if (!ring.put(local.getName(published))) {
+							return;
+						}
+					}
+					if ((comments || c.getKind() != Command.KIND_COMMENT) && !ring.put(c)) {
+						return;
+					}
+				}
+			} catch (AssembleError e) {
+				error[0] = e;
+			} finally {
+				ring.close();
+			}
+		}, "Parser");
+		thread.setDaemon(true);
+		thread.start();
+		try {
+			Object item;
+			while ((item = ring.take()) != null) {
+				if (item instanceof String) {
+					symbols.intern((String)item);
+					continue;
+				}
+				checkInterrupt();
+				Command c = (Command)item;
+				if (spill != null && table.size() == IntermediateFile.BLOCK) {
+					spill.write(table);
+				}
+				define(table.add(c, location, symbols), getSymbolList(c));
+			}
+		} finally {
+			ring.cancel();
+		}
+		try {
+			thread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if (error[0] != null) {
+			throw error[0];
+		}
+		finish(parser.getRow(), parser.getCol());
+	}
+
+	//Parses the source in chunks on the pool, defining the rows of each chunk
+	//as soon as it and the chunks before it are parsed
+	public void run(Scanner scanner, ForkJoinPool pool) throws AssembleError {
+		byte[] source = scanner.getSource();
+		int length = scanner.getLength();
+		List<Chunk> chunks = new ArrayList<>();
+		int start = scanner.getOffset();
+		do {
+			int end = start;
+			do {
+				end = nextLine(source, end, length);
+			} while (end < length && end - start < CHUNK);
+			chunks.add(new Chunk(source, start, end, align != null));
+			start = end;
+		} while (start < length);
+		run(chunks, pool);
+	}
+
+	//Defines the rows of the chunks, which cover the source in order. The
+	//chunks that are not parsed yet are parsed on the pool, or on this thread
+	//if the pool is null. The list lets go of each chunk once it is defined,
+	//but the chunk is left as it was, so it can be used again
+	void run(List<Chunk> chunks, ForkJoinPool pool) throws AssembleError {
+		List<ForkJoinTask<?>> tasks = new ArrayList<>();
+		//The same chunk can come twice, if its lines do
+		Set<Chunk> submitted = new HashSet<>();
+		for (Chunk chunk : chunks) {
+			boolean submit = pool != null && !chunk.parsed && submitted.add(chunk);
+			tasks.add(submit ? pool.submit(chunk::parse) : null);
+		}
+
+		SymbolTable symbols = program.getSymbols();
+		int lineOffset = 0;
+		try {
+			for (int k = 0; k < chunks.size(); k++) {
+				checkInterrupt();
+				Chunk chunk = chunks.get(k);
+				chunks.set(k, null);
+				if (tasks.get(k) != null) {
+					tasks.get(k).join();
+				} else if (!chunk.parsed) {
+					chunk.parse();
+				}
+
+				//Intern the chunk's symbols in the order the chunk first saw them
+				SymbolTable local = chunk.symbols;
+				int[] ids = new int[local.size()];
+				for (int id = 0; id < ids.length; id++) {
+					ids[id] = symbols.intern(local.getPool(), local.getStart(id), local.getEnd(id));
+				}
+				int first = table.size();
+				table.append(chunk.table, ids, lineOffset);
+				int list = 0;
+				for (int i = first; i < table.size(); i++) {
+					int ordinal = table.getOrdinal(i);
+					int[] symbolList = null;
+					if (ordinal == Global.EXTDEF || ordinal == Global.EXTREF) {
+						int[] localList = chunk.symbolLists.get(list++);
+						symbolList = new int[localList.length];
+						for (int j = 0; j < symbolList.length; j++) {
+							symbolList[j] = ids[localList[j]];
+						}
+					}
+					try {
+						define(i, symbolList);
+					} catch (AssembleError e) {
+						//Nothing after the row was parsed
+						table.truncate(i + 1);
+						throw e;
+					}
+				}
+				if (chunk.error != null) {
+					throw new AssembleError(chunk.error.getRow() + lineOffset, chunk.error.getCol(),
+						chunk.error.getMessage());
+				}
+				if (k == chunks.size() - 1) {
+					finish(chunk.endRow + lineOffset, chunk.endCol);
+				}
+				lineOffset += chunk.lines;
+			}
+		} finally {
+			for (ForkJoinTask<?> task : tasks) {
+				if (task != null) {
+					task.cancel(false);
+				}
+			}
+		}
+	}
+
+	//Moves the location counter to row i and applies the row. symbolList
+	//holds the ids of an EXTDEF or EXTREF row
+	private void define(int i, int[] symbolList) throws AssembleError {
+		SymbolTable symbols = program.getSymbols();
+		int ordinal = table.getOrdinal(i);
+		int line = table.getLine(i);
+		if (align != null) {
+			align.update(table, i);
+		}
+		table.setLocation(i, location);
+		if (beforeStart) {
+			if (ordinal != Global.START && ordinal >= 0) {
+				logger.log(line, 1, "Expected START or comment");
+			}
+			if (ordinal == Global.START) {
+				if (table.getLabel(i) < 0) {
+					logger.log(line, 1, "Expected program name");
+				}
+				program.setName(symbols.getName(table.getLabel(i)));
+				int start = table.getOperand(i);
+				program.setStart(start);
+				program.setLocationCounter(start);
+				table.relocate(start);
+				if (spill != null) {
+					spill.relocate(start);
+				}
+				location += start;
+				beforeStart = false;
+			}
+		} else if (afterEnd) {
+			if (ordinal >= 0) {
+				logger.log(line, 1, "Expected comment");
+			}
+		}
+		if (ordinal == Global.END) {
+			afterEnd = true;
+		//Modify locctr by org expr
+		} else if (ordinal == Global.ORG) {
+			int e = table.getExpression(i);
+			evaluator.evaluate(table.getCode(), table.getCodeStart(e), table.getCodeEnd(e), line,
+				program.getLocationCounter());
+			program.setLocationCounter(evaluator.getValue());
+			table.setOperand(i, evaluator.getValue());
+			location = evaluator.getValue();
+		//Add extdef symbols
+		} else if (ordinal == Global.EXTDEF) {
+			for (int def : symbolList) {
+				program.addExternalDefintion(def);
+			}
+		//Add extref symbols
+		} else if (ordinal == Global.EXTREF) {
+			for (int ref : symbolList) {
+				if (symbols.isDefined(ref)) {
+					earlyCode = false;
+				}
+				program.addExternalReference(ref);
+			}
+		}
+		//Add symbols to symtab
+		int label = table.getLabel(i);
+		if (label >= 0) {
+			if (symbols.isDefined(label)) {
+				logger.log(line, 1, "Duplicate symbol " + symbols.getName(label));
+				earlyCode = false;
+			}
+			symbols.define(label, program.getLocationCounter(), false);
+		}
+
+		//Increment locctr by size
+		program.incrementLocationCounter(table.getSize(i));
+		location += table.getSize(i);
+		
+		//Locations move when START comes
+		if (earlyCode && !beforeStart) {
+			assembler.assembleEarly(i);
+		}
+	}
+
+	//Checks the end of the source, which is at the row and column
+	void finish(int row, int col) {
+		if (spill == null) {
+			table.trim();
+		}
+		//Loop terminated without an end directive
+		if (!afterEnd) {
+			logger.log(row, col, "Expected END Directive");
+		}
+	}
+
+	//Gets the offset just past the line that starts at pos: past its newline,
+	//or the length. A newline within C'...' or X'...' data does not end the
+	//line, so chunks are only cut where the lexer would see a newline token.
+	//Data starts, as in the lexer, at a quote right after the first letter of
+	//a token, and a comment runs to the end of the line
+	static int nextLine(byte[] source, int pos, int length) {
+		//Whether pos is past the first letter of a symbol
+		boolean symbol = false;
+		while (pos < length) {
+			byte b = source[pos++];
+			if (b == '\n') {
+				return pos;
+			} else if (b == '.') {
+				while (pos < length && source[pos] != '\n') {
+					pos++;
+				}
+			} else if ((b >= 'A' && b <= 'Z') || (b >= 'a' && b <= 'z') || b == '_') {
+				if (!symbol && pos < length && source[pos] == '\'') {
+					//Skip the data, up to and past its close quote
+					pos++;
+					while (pos < length && source[pos] != '\'') {
+						pos++;
+					}
+					pos++;
+				} else {
+					symbol = true;
+				}
+			} else if (b < '0' || b > '9') {
+				symbol = false;
+			}
+		}
+		return length;
+	}
+
+	//Gets the symbol ids of an EXTDEF or EXTREF, or null for other commands
+	static int[] getSymbolList(Command c) {
+		switch(c.getKind()) {
+		case Command.KIND_EXTDEF: return ((ExtdefDirective) c).getSymbols();
+		case Command.KIND_EXTREF: return ((ExtrefDirective) c).getSymbols();
+		default: return null;
+		}
+	}
+
+	//The lines of the source between two offsets, parsed on their own. Rows,
+	//lines, and symbol ids are local to the chunk until it is stitched, so a
+	//parsed chunk is the same wherever its lines are in the source
+	static class Chunk {
+		private byte[] source;
+		private int start;
+		private int end;
+
+		private SymbolTable symbols = new SymbolTable();
+		private CommandTable table = new CommandTable();
+		//Symbol ids of the EXTDEF and EXTREF rows, in row order
+		private List<int[]> symbolLists = new ArrayList<>();
+		//The error that stopped the parsing, or null
+		private AssembleError error;
+		//Where the parser stopped
+		private int endRow;
+		private int endCol;
+		//The number of lines in the chunk
+		private int lines;
+		private boolean parsed;
+
+		public Chunk(byte[] source, int start, int end, boolean listing) {
+			this.source = source;
+			this.start = start;
+			this.end = end;
+			table.setListing(listing);
+		}
+
+		public void parse() {
+			Scanner scanner = new Scanner(source, start, end);
+			Parser parser = new Parser(new Lexer(scanner, symbols));
+			try {
+				Command c;
+				while ((c = parser.next()) != null) {
+					if (!table.isListing() && c.getKind() == Command.KIND_COMMENT) {
+						continue;
+					}
+					table.add(c, 0, symbols);
+					int[] symbolList = getSymbolList(c);
+					if (symbolList != null) {
+						symbolLists.add(symbolList);
+					}
+				}
+			} catch (AssembleError e) {
+				error = e;
+			}
+			endRow = parser.getRow();
+			endCol = parser.getCol();
+			//A chunk ends after a newline, so the offset after it starts a line
+			lines = scanner.getRow(end) - 1;
+			parsed = true;
+		}
+
+		//Whether the chunk holds the same lines as the source between start and end
+		public boolean holds(byte[] source, int start, int end) {
+			return Arrays.equals(this.source, this.start, this.end, source, start, end);
+		}
+
+		public boolean isListing() {
+			return table.isListing();
+		}
+	}
+}
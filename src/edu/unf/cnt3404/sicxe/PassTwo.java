@@ -0,0 +1,362 @@
+package edu.unf.cnt3404.sicxe;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import edu.unf.cnt3404.sicxe.object.ModificationRecord;
+import edu.unf.cnt3404.sicxe.parse.AssembleError;
+import edu.unf.cnt3404.sicxe.syntax.CommandTable;
+import edu.unf.cnt3404.sicxe.syntax.Program;
+
+//Performs pass two over the rows of a command table, a window of rows at a time.
+//First, the directives that change the program state are assembled in order,
+//which gives every row of the window its base register and the place of its
+//object code. Then the window is cut into chunks of contiguous rows, which are
+//assembled in parallel on a ForkJoinPool.
+//Each assembled window is published once to two consumers: the listing, and the
+//object program, which also logs the errors in row order and stops writing at
+//the first one, exactly as when the rows are assembled one by one. With a pool,
+//each consumer runs on a thread of its own, so the listing's formatting overlaps
+//the assembling and the object program, and a few windows are in flight: a
+//window is refilled only after both consumers are done with it. Without a pool,
+//everything happens on the calling thread.
+//Without a listing, there is one consumer. Without an object program, pass two
+//only checks the rows for errors: the consumer logs them, and writes nothing.
+public class PassTwo {
+
+	//Rows per chunk
+	private static final int CHUNK = 1024;
+	//Chunks per window, per thread
+	private static final int CHUNKS_PER_THREAD = 4;
+	//Windows in flight between the assembler and the consumers
+	private static final int WINDOWS = 3;
+
+	private Program program;
+	private CommandTable table;
+	private Alignment align;
+	private AssembleErrorLogger logger;
+	//Null to do everything on the calling thread
+	private ForkJoinPool pool;
+	//Null to write no object program
+	private ObjectProgramWriter object;
+	//Null to write no listing
+	private ListingProgramWriter listing;
+	//The errors logged before pass two. The listing reads these, while the
+	//object program logs the errors of pass two
+	private Map<Integer, AssembleError> errors;
+	//Assembles the state directives, in order
+	private Assembler assembler;
+	//Whether to copy the code of the rows that pass one assembled
+	private boolean earlyCode;
+	private int rows;
+
+	private Window[] windows = new Window[WINDOWS];
+	//Sequence barrier: the number of windows assembled, listed, and written.
+	//A window is reused when it is both listed and written
+	private volatile long published;
+	private volatile long listed;
+	private volatile long written;
+	//Set when no more windows will be published
+	private volatile boolean closed;
+	private volatile Throwable failure;
+	private Thread listingThread;
+	private Thread objectThread;
+
+	//lst is null to write no listing, and object is null to write no object program.
+	//earlyCode is whether the code of the rows that pass one assembled is valid
+	public PassTwo(Program program, CommandTable table, Alignment align, AssembleErrorLogger logger,
+			ForkJoinPool pool, boolean earlyCode, PrintWriter lst, ObjectProgramWriter object) {
+		this.program = program;
+		this.table = table;
+		this.align = align;
+		this.logger = logger;
+		this.pool = pool;
+		this.earlyCode = earlyCode;
+		this.object = object;
+		errors = logger.toMap();
+		if (lst != null) {
+			listing = new ListingProgramWriter(program, table, align, errors, lst);
+		}
+		assembler = new Assembler(program, table);
+		rows = CHUNK * CHUNKS_PER_THREAD * (pool == null ? 1 : pool.getParallelism());
+		for (int w = 0; w < WINDOWS; w++) {
+			windows[w] = new Window(rows / CHUNK);
+		}
+		if (pool != null) {
+			if (listing != null) {
+				listingThread = start("Listing", this::list);
+			}
+			objectThread = start("Object", this::write);
+		}
+	}
+
+	//Assembles and writes every row in the table. Returns once the consumers
+	//are done with the table, so the caller may refill it
+	public void run() {
+		for (int from = 0; from < table.size(); from += rows) {
+			if (Thread.currentThread().isInterrupted()) {
+				//Let the consumers go
+				closed = true;
+				PassOne.checkInterrupt();
+			}
+			long sequence = published;
+			Window window = windows[(int)(sequence % WINDOWS)];
+			if (pool == null) {
+				assemble(window, from, Math.min(from + rows, table.size()));
+				if (listing != null) {
+					list(window);
+				}
+				write(window);
+			} else {
+				//Wait until both consumers are done with the window
+				await(sequence - WINDOWS + 1);
+				assemble(window, from, Math.min(from + rows, table.size()));
+				published = sequence + 1;
+			}
+		}
+		await(published);
+	}
+
+	//Waits for the consumers to finish, after the last table
+	public void finish() {
+		close();
+	}
+
+	//Lets the consumers go after the caller failed with e, instead of finish.
+	//A failure of the consumers is added to e
+	public void abort(Throwable e) {
+		try {
+			close();
+		} catch (RuntimeException ex) {
+			e.addSuppressed(ex);
+		}
+	}
+
+	//Lets the consumers go, and waits for them to finish
+	private void close() {
+		closed = true;
+		try {
+			if (listingThread != null) {
+				listingThread.join();
+			}
+			if (objectThread != null) {
+				objectThread.join();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if (failure != null) {
+			throw new IllegalStateException(failure);
+		}
+	}
+
+	//Fills the window with the rows between from and to
+	private void assemble(Window w, int from, int to) {
+		w.start = from;
+		w.end = to;
+		int count = to - from;
+		if (w.bases.length < count) {
+			w.bases = new int[count];
+			w.offsets = new int[count];
+			w.errors = new AssembleError[count];
+			w.modCounts = new int[count];
+		}
+
+		//Assemble the state directives in order
+		int size = 0;
+		for (int i = from; i < to; i++) {
+			int r = i - from;
+			w.errors[r] = null;
+			w.modCounts[r] = 0;
+			int ordinal = table.getOrdinal(i);
+			if (ordinal >= 0 && Assembler.isStateDirective(ordinal)) {
+				try {
+					assembler.assembleStateDirective(i);
+				} catch (AssembleError e) {
+					w.errors[r] = e;
+				}
+			}
+			w.bases[r] = program.getBase();
+			w.offsets[r] = size;
+			if (table.isWriteable(i)) {
+				size += table.getSize(i);
+			}
+		}
+		if (w.code.length < size) {
+			w.code = new byte[Math.max(size, w.code.length * 2)];
+		}
+
+		//Assemble the chunks
+		w.chunks = (count + CHUNK - 1) / CHUNK;
+		if (pool == null || w.chunks == 1) {
+			for (int chunk = 0; chunk < w.chunks; chunk++) {
+				w.assemble(chunk);
+			}
+		} else {
+			pool.invoke(new ChunkTask(w, 0, w.chunks));
+		}
+	}
+
+	//Consumes the windows into the listing
+	private void list() {
+		for (long sequence = 0; awaitPublished(sequence); sequence++) {
+			list(windows[(int)(sequence % WINDOWS)]);
+			listed = sequence + 1;
+		}
+	}
+
+	//Appends the rows of the window to the listing
+	private void list(Window w) {
+		for (int i = w.start; i < w.end; i++) {
+			int r = i - w.start;
+			listing.write(i, w.code, w.offsets[r], w.errors[r]);
+		}
+	}
+
+	//Consumes the windows into the object program
+	private void write() {
+		for (long sequence = 0; awaitPublished(sequence); sequence++) {
+			write(windows[(int)(sequence % WINDOWS)]);
+			written = sequence + 1;
+		}
+	}
+
+	//Logs the errors of the window's rows, and writes the rows, with their
+	//modification records, to the object program until there is an error
+	private void write(Window w) {
+		for (int chunk = 0; chunk < w.chunks; chunk++) {
+			List<ModificationRecord> mods = w.mods.get(chunk);
+			int mod = 0;
+			for (int i = w.start + chunk * CHUNK; i < Math.min(w.start + (chunk + 1) * CHUNK, w.end); i++) {
+				int r = i - w.start;
+				if (w.errors[r] != null) {
+					logger.log(w.errors[r]);
+				}
+				if (object != null && !logger.hasErrors()) {
+					object.write(i, w.code, w.offsets[r]);
+					for (int j = 0; j < w.modCounts[r]; j++) {
+						object.modify(mods.get(mod + j));
+					}
+				}
+				mod += w.modCounts[r];
+			}
+			mods.clear();
+		}
+	}
+
+	//Waits until both consumers are done with the first count windows
+	private void await(long count) {
+		int spins = 0;
+		while ((listing != null && listed < count) || written < count) {
+			if (failure != null) {
+				throw new IllegalStateException(failure);
+			}
+			spins = RingBuffer.pause(spins);
+		}
+	}
+
+	//Waits until the window is published, and returns false if it never will be
+	private boolean awaitPublished(long sequence) {
+		int spins = 0;
+		while (published <= sequence) {
+			if (closed && published <= sequence) {
+				return false;
+			}
+			spins = RingBuffer.pause(spins);
+		}
+		return true;
+	}
+
+	private Thread start(String name, Runnable consumer) {
+		Thread thread = new Thread(() -> {
+			try {
+				consumer.run();
+			} catch (Throwable t) {
+				failure = t;
+			}
+		}, name);
+		thread.setDaemon(true);
+		thread.start();
+		return thread;
+	}
+
+	//The rows that are assembled together. Arrays are indexed by row - start
+	private class Window {
+		private int start;
+		private int end;
+		private int chunks;
+		//Contents of the base register at each row, or less than 0 if disabled
+		private int[] bases = new int[0];
+		//Offset of each row's object code in code
+		private int[] offsets = new int[0];
+		private byte[] code = new byte[0];
+		//Error of each row, or null
+		private AssembleError[] errors = new AssembleError[0];
+		//Number of modification records of each row. The records themselves
+		//are in the row's chunk, in row order
+		private int[] modCounts = new int[0];
+		private List<List<ModificationRecord>> mods = new ArrayList<>();
+
+		public Window(int chunks) {
+			for (int i = 0; i < chunks; i++) {
+				mods.add(new ArrayList<>());
+			}
+		}
+
+		//Assembles the rows of the chunk. Runs on any thread, and only
+		//writes to the slots of the chunk's own rows
+		private void assemble(int chunk) {
+			int from = start + chunk * CHUNK;
+			int to = Math.min(from + CHUNK, end);
+			Assembler assembler = new Assembler(program, table);
+			List<ModificationRecord> chunkMods = mods.get(chunk);
+			for (int i = from; i < to; i++) {
+				int r = i - start;
+				int ordinal = table.getOrdinal(i);
+				if (earlyCode && table.isEncoded(i)) {
+					table.getEarlyCode(i, code, offsets[r]);
+				} else if (ordinal < 0 || !Assembler.isStateDirective(ordinal)) {
+					try {
+						assembler.assemble(i, bases[r], code, offsets[r]);
+						if (object != null && table.isModifiable(i)) {
+							int count = chunkMods.size();
+							assembler.modify(i, chunkMods);
+							modCounts[r] = chunkMods.size() - count;
+						}
+					} catch (AssembleError e) {
+						errors[r] = e;
+					}
+				}
+			}
+		}
+	}
+
+	//Assembles a range of chunks of the window, splitting it in half until
+	//one chunk is left
+	@SuppressWarnings("serial")
+	private static class ChunkTask extends RecursiveAction {
+		private Window window;
+		private int from;
+		private int to;
+
+		public ChunkTask(Window window, int from, int to) {
+			this.window = window;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from == 1) {
+				window.assemble(from);
+			} else {
+				int middle = (from + to) >>> 1;
+				invokeAll(new ChunkTask(window, from, middle), new ChunkTask(window, middle, to));
+			}
+		}
+	}
+}
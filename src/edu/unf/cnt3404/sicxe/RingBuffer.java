@@ -0,0 +1,107 @@
+package edu.unf.cnt3404.sicxe;
+
+import java.util.concurrent.locks.LockSupport;
+
+//A bounded queue from exactly one producer thread to exactly one consumer thread.
+//Each side writes only its own index, and caches the other side's index, so a
+//put or take reads the other's volatile index only when the cached one says
+//the ring is full or empty. A full ring makes the producer wait, which bounds
+//the memory held between the two threads.
+public class RingBuffer<T> {
+
+	//Busy waits before a waiting side starts to sleep
+	private static final int SPINS = 128;
+	private static final long SLEEP_NANOS = 20000;
+
+	private Object[] slots;
+	private int mask;
+
+	//Index of the next item to take. Written by the consumer only
+	private volatile long head;
+	//Index of the next item to put. Written by the producer only
+	private volatile long tail;
+	//Set by the producer after its last put
+	private volatile boolean closed;
+	//Set by the consumer when it will not take any more items
+	private volatile boolean cancelled;
+
+	//The producer's copy of head, and the consumer's copy of tail
+	private long headCache;
+	private long tailCache;
+
+	//Creates a ring that holds up to capacity items, rounded up to a power of two
+	public RingBuffer(int capacity) {
+		int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+		slots = new Object[size];
+		mask = size - 1;
+	}
+
+	//Adds the item, waiting while the ring is full. Returns false, dropping
+	//the item, if the consumer has cancelled
+	public boolean put(T item) {
+		long t = tail;
+		int spins = 0;
+		while (t - headCache == slots.length) {
+			headCache = head;
+			if (t - headCache < slots.length) {
+				break;
+			}
+			if (cancelled) {
+				return false;
+			}
+			spins = pause(spins);
+		}
+		slots[(int)t & mask] = item;
+		tail = t + 1;
+		return true;
+	}
+
+	//Tells the consumer that there will be no more items
+	public void close() {
+		closed = true;
+	}
+
+	//Removes the next item, waiting while the ring is empty, or returns null
+	//if the ring is empty and closed
+	@SuppressWarnings("unchecked")
+	public T take() {
+		long h = head;
+		int spins = 0;
+		while (h == tailCache) {
+			tailCache = tail;
+			if (h < tailCache) {
+				break;
+			}
+			if (closed) {
+				//Items put before closing are visible once closed is
+				tailCache = tail;
+				if (h == tailCache) {
+					return null;
+				}
+				break;
+			}
+			spins = pause(spins);
+		}
+		int slot = (int)h & mask;
+		T item = (T)slots[slot];
+		slots[slot] = null;
+		head = h + 1;
+		return item;
+	}
+
+	//Tells the producer that no more items will be taken
+	public void cancel() {
+		cancelled = true;
+	}
+
+	//Spins a while, then sleeps for longer and longer, up to about a millisecond.
+	//Returns the number of waits so far
+	static int pause(int spins) {
+		if (spins < SPINS) {
+			Thread.onSpinWait();
+		} else {
+			LockSupport.parkNanos(SLEEP_NANOS << Math.min(spins - SPINS, 6));
+		}
+		return spins + 1;
+	}
+}
@@ -2,176 +2,341 @@ package edu.unf.cnt3404.sicxe;
 
 import java.io.BufferedReader;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
+import java.io.IOException;
 import java.io.PrintWriter;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 
+import edu.unf.cnt3404.sicxe.object.RecordEncoder;
 import edu.unf.cnt3404.sicxe.parse.AssembleError;
 import edu.unf.cnt3404.sicxe.parse.Lexer;
 import edu.unf.cnt3404.sicxe.parse.Parser;
 import edu.unf.cnt3404.sicxe.parse.Scanner;
-import edu.unf.cnt3404.sicxe.syntax.Command;
-import edu.unf.cnt3404.sicxe.syntax.Expression;
+import edu.unf.cnt3404.sicxe.syntax.CommandTable;
+import edu.unf.cnt3404.sicxe.syntax.IntermediateFile;
 import edu.unf.cnt3404.sicxe.syntax.Program;
-import edu.unf.cnt3404.sicxe.syntax.command.Comment;
-import edu.unf.cnt3404.sicxe.syntax.command.ExpressionCommand;
-import edu.unf.cnt3404.sicxe.syntax.command.directive.EndDirective;
-import edu.unf.cnt3404.sicxe.syntax.command.directive.ExtdefDirective;
-import edu.unf.cnt3404.sicxe.syntax.command.directive.ExtrefDirective;
-import edu.unf.cnt3404.sicxe.syntax.command.directive.OrgDirective;
-import edu.unf.cnt3404.sicxe.syntax.command.directive.StartDirective;
 
 //Salim, Brandon Mathis, Brandon Mack
 public class SicXeAssm {
 	
-	private Parser parser;
-	private Alignment align = new Alignment();
+	//Milliseconds that a watched file has to stay the same before it is assembled
+	private static final int SETTLE = 10;
+	
+	private Scanner scanner;
 	private Program program = new Program();
-	private List<Command> commands = new ArrayList<>();
+	private Alignment align = new Alignment(program.getSymbols());
+	private CommandTable table = new CommandTable();
 	private AssembleErrorLogger logger = new AssembleErrorLogger();
+	//Null unless pass one spills its rows
+	private IntermediateFile spill;
+	//Threads that parse pass one and assemble pass two, 1 to run both passes
+	//on the calling thread
+	private int threads = Runtime.getRuntime().availableProcessors();
+	//Created on first use, unless it is shared
+	private ForkJoinPool pool;
+	//Whether the pool belongs to the caller, which shuts it down
+	private boolean sharedPool;
+	//Null unless pass one uses the chunks of an earlier assembly
+	private ChunkCache cache;
+	//Whether pass one parses on a thread of its own
+	private boolean pipeline;
+	//Whether pass one keeps what the listing needs
+	private boolean listing = true;
+	//Whether pass two may copy the rows that pass one assembled
+	private boolean earlyCode;
+	
+	//Assembles the ASCII source in the byte array
+	public SicXeAssm(byte[] source) {
+		scanner = new Scanner(source);
+	}
 	
 	public SicXeAssm(BufferedReader reader) {
-		parser = new Parser(new Lexer(new Scanner(reader)));
+		scanner = new Scanner(reader);
+	}
+	
+	//Makes pass one spill its rows to an intermediate file at the path,
+	//which pass two reads back and deletes, instead of keeping them in memory
+	public void spill(Path path) {
+		spill = new IntermediateFile(path);
+	}
+	
+	//Makes pass one use the parsed chunks of an earlier assembly where the
+	//source is the same, and keep its own for the next one. The rows are not
+	//spilled then
+	public void setChunkCache(ChunkCache cache) {
+		this.cache = cache;
+	}
+	
+	//Makes pass one parse on a thread of its own, feeding the commands to the
+	//thread that defines them
+	public void setPipeline(boolean pipeline) {
+		this.pipeline = pipeline;
+	}
+	
+	//Sets the number of threads that parse pass one and assemble pass two
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+	
+	//Makes both passes run on the pool, which outlives the assembly, instead
+	//of on a pool of their own. Its parallelism replaces the number of threads
+	public void setPool(ForkJoinPool pool) {
+		this.pool = pool;
+		threads = pool.getParallelism();
+		sharedPool = true;
+	}
+	
+	//Makes pass one skip what only the listing needs: the alignment, the text 
+	//of arguments and comments, and the comments themselves. Pass two must then 
+	//write no listing
+	public void setListing(boolean listing) {
+		this.listing = listing;
 	}
 	
 	//Eval ORG and modify locctr
 	//Populate symtab with labels
 	public void passOne() throws AssembleError {
-		boolean beforeStart = true;
-		boolean afterEnd = false;
-		Command c = parser.next();
-		
-		do {
-			align.update(c);
-			commands.add(c);
-			if (beforeStart) {
-				if (!(c instanceof StartDirective) && !(c instanceof Comment)) {
-					logger.log(c, "Expected START or comment");
-				}
-				if (c instanceof StartDirective) {
-					if (c.getLabel() == null) {
-						logger.log(c, "Expected program name");
-					}
-					program.setName(c.getLabel());
-					int start = ((StartDirective) c).getStart();
-					program.setStart(start);
-					program.setLocationCounter(start);
-					beforeStart = false;
-				}
-			} else if (afterEnd) {
-				if (!(c instanceof Comment)) {
-					logger.log(c, "Expected comment");
-				}
-			}
-			if (c instanceof EndDirective) {
-				afterEnd = true;
-			//Modify locctr by org expr
-			} else if (c instanceof OrgDirective) {
-				((OrgDirective) c).getExpression().evaluate(c, program);
-				program.setLocationCounter(((OrgDirective) c).getExpression().getValue());
-			//Add extdef symbols
-			} else if (c instanceof ExtdefDirective) {
-				for (String def : ((ExtdefDirective) c).getSymbols()) {
-					program.addExternalDefintion(def);
-				}
-			//Add extref symbols
-			} else if (c instanceof ExtrefDirective) {
-				for (String ref : ((ExtrefDirective) c).getSymbols()) {
-					program.addExternalReference(ref);
-				}
-			}
-			//Add symbols to symtab
-			if (c.getLabel() != null) {
-				if (program.getSymbol(c.getLabel()) != null) {
-					logger.log(c, "Duplicate symbol " + c.getLabel());
-				}
-				program.put(c.getLabel(), program.getLocationCounter(), false);
+		table.setListing(listing);
+		PassOne pass = new PassOne(program, table, listing ? align : null, logger, spill);
+		try {
+			//Spilled rows have to be written in order, so they are parsed in order
+			if (cache != null && spill == null) {
+				pass.run(cache.cut(scanner, listing), threads > 1 ? getPool() : null);
+			} else if (pipeline) {
+				pass.pipeline(scanner);
+			} else if (threads > 1 && spill == null) {
+				pass.run(scanner, getPool());
+			} else {
+				pass.run(new Parser(new Lexer(scanner, program.getSymbols())));
 			}
-			
-			//Increment locctr by size
-			program.incrementLocationCounter(c.getSize());
-			
-			c = parser.next();
-		} while (c != null);
-		
-		//Loop terminated without an end directive
-		if (!afterEnd) {
-			logger.log(parser, "Expected END Directive");
+		} finally {
+			earlyCode = pass.hasEarlyCode();
+		}
+	}
+	
+	private ForkJoinPool getPool() {
+		if (pool == null) {
+			pool = new ForkJoinPool(threads);
 		}
+		return pool;
+	}
+	
+	//Gets the rows that pass one recorded
+	public CommandTable getCommandTable() {
+		return table;
 	}
 	
 	//Eval all other expressions
 	//Assemble instructions and directives
 	//Write commands to listing
 	//Write commands to object file
+	//lst is null to write no listing, and obj is null to only check for errors
 	//Returns whether there are logged errors
-	public boolean passTwo(PrintWriter lst, PrintWriter obj) {
-		Assembler assembler = new Assembler(program);
-		ListingProgramWriter listing = new ListingProgramWriter(program, align, logger.toMap(), lst);
-		ObjectProgramWriter object = new ObjectProgramWriter(program, obj);
-		
-		//Reset location counter
-		program.setLocationCounter(program.getStart()); 
-		object.writeHeaderReferAndDefineRecords();
+	public boolean passTwo(PrintWriter lst, WritableByteChannel obj) {
+		if (lst != null && !listing) {
+			throw new IllegalStateException("Pass one kept no listing");
+		}
+		RecordEncoder encoder = obj == null ? null : new RecordEncoder(obj);
+		ObjectProgramWriter object = obj == null ? null : new ObjectProgramWriter(program, table, encoder);
+		PassTwo pass = new PassTwo(program, table, align, logger, 
+			threads > 1 ? getPool() : null, earlyCode, lst, object);
 		
-		for (Command c : commands) {
-			if (c instanceof ExpressionCommand) {
-				Expression expr = ((ExpressionCommand) c).getExpression();
-				if (expr != null) { //END Directive has null expression sometimes
-					try {
-						expr.evaluate(c, program);
-					} catch (AssembleError e) {
-						logger.log(e);
+		//The source is not needed anymore
+		scanner = null;
+		try {
+			try {
+				if (object != null) {
+					object.writeHeaderReferAndDefineRecords();
+				}
+				
+				if (spill == null) {
+					pass.run();
+				} else {
+					//Spill the last rows, then stream all of them back
+					spill.write(table);
+					spill.rewind();
+					while (spill.read(table)) {
+						pass.run();
 					}
 				}
+			} catch (RuntimeException | Error e) {
+				//The consumer threads would wait for rows forever
+				pass.abort(e);
+				throw e;
 			}
-			try {
-				assembler.assemble(c);
-				//c.setAssembled();
-			} catch (AssembleError e) {
-				logger.log(e);
+			pass.finish();
+		} finally {
+			if (pool != null && !sharedPool) {
+				pool.shutdown();
+				pool = null;
 			}
-			listing.write(c);
-			if (!logger.hasErrors()) {
-				object.write(c);
-			}
-			if (c instanceof OrgDirective) {
-				program.setLocationCounter(((OrgDirective) c).getExpression().getValue());
-			}
-			program.incrementLocationCounter(c.getSize());
 		}
 		
-		object.writeModificationAndEndRecords();
+		if (object != null) {
+			object.writeModificationAndEndRecords();
+		}
 		
-		lst.flush();
-		if (!logger.hasErrors()) {
-			obj.flush();
+		if (lst != null) {
+			lst.flush();
+		}
+		if (encoder != null && !logger.hasErrors()) {
+			encoder.flush();
 		}
 		
 		
 		return logger.hasErrors();
 	}
 
+	//Assembles the source in one pass instead of two (see OnePass), writing
+	//the object program to obj and no listing. A syntax error is thrown after
+	//the object program is finished with the rows before it
+	public void onePass(FileChannel obj) throws AssembleError {
+		OnePass pass = new OnePass(program, table, logger, obj);
+		Scanner source = scanner;
+		scanner = null;
+		pass.run(new Parser(new Lexer(source, program.getSymbols())));
+	}
+	
+	public boolean hasErrors() {
+		return logger.hasErrors();
+	}
+
+	//Gets the logged errors, in row order
+	public List<AssembleError> getErrors() {
+		List<AssembleError> errors = new ArrayList<>(logger.toMap().values());
+		errors.sort(Comparator.comparingInt(AssembleError::getRow));
+		return errors;
+	}
 	
 	public static void main(String[] args) {
+		//Options come before the file names:
+		//--spill keeps the rows of pass one in an intermediate file, <file>.int
+		//--threads=N parses pass one and assembles pass two on N threads
+		//--pipeline parses pass one on one thread while another defines the commands
+		//--no-listing writes no listing, and prints the errors instead
+		//--check writes nothing, and prints the errors
+		//--one-pass assembles a file in a single pass, writes no listing,
+		//and prints the errors
+		//--watch assembles a file again whenever it changes, parsing only
+		//the chunks of it that changed, until stopped
+		//--daemon serves assemble requests on standard input, and --daemon=SOCKET
+		//on a Unix domain socket, instead of assembling files (see Daemon).
+		//--jobs=N runs at most N requests at once
+		//With more than one file, a directory (its .txt files), or @manifest
+		//(a file listing one source per line), the files are assembled as a batch:
+		//--jobs=N assembles at most N files at once
+		//--memory=MB limits the estimated memory of the files assembled at once
+		boolean spill = false;
+		boolean pipeline = false;
+		boolean listing = true;
+		boolean check = false;
+		boolean onePass = false;
+		boolean watch = false;
+		String daemon = null;
+		int threads = 0;
+		int jobs = Runtime.getRuntime().availableProcessors();
+		int memory = (int)Math.max(1, Runtime.getRuntime().maxMemory() / 2 >> 20);
+		int arg = 0;
+		for (; arg < args.length && args[arg].startsWith("--"); arg++) {
+			if (args[arg].equals("--spill")) {
+				spill = true;
+			} else if (args[arg].equals("--pipeline")) {
+				pipeline = true;
+			} else if (args[arg].equals("--no-listing")) {
+				listing = false;
+			} else if (args[arg].equals("--check")) {
+				listing = false;
+				check = true;
+			} else if (args[arg].equals("--one-pass")) {
+				listing = false;
+				onePass = true;
+			} else if (args[arg].equals("--daemon")) {
+				daemon = "";
+			} else if (args[arg].startsWith("--daemon=")) {
+				daemon = args[arg].substring("--daemon=".length());
+			} else if (args[arg].equals("--watch")) {
+				watch = true;
+			} else if (args[arg].startsWith("--threads=")) {
+				threads = getCount(args[arg], "--threads=");
+			} else if (args[arg].startsWith("--jobs=")) {
+				jobs = getCount(args[arg], "--jobs=");
+			} else if (args[arg].startsWith("--memory=")) {
+				memory = getCount(args[arg], "--memory=");
+			} else {
+				System.err.println("Unknown option " + args[arg] + "!");
+				System.exit(1);
+			}
+		}
+		if (daemon != null) {
+			serve(daemon, jobs);
+			return;
+		}
 		//Ensure there is one argument (file name)
-		if (args.length < 1) {
+		if (arg == args.length) {
 			System.err.println("Requires file name!");
 			System.exit(1);
 		}
+		boolean many = arg + 1 < args.length || args[arg].startsWith("@") 
+				|| Files.isDirectory(Paths.get(args[arg]));
+		if (onePass && (many || spill || check)) {
+			System.err.println("--one-pass writes the object file of one file!");
+			System.exit(1);
+		}
+		if (watch && (many || spill || onePass)) {
+			System.err.println("--watch assembles one file again as it changes!");
+			System.exit(1);
+		}
+		if (many) {
+			batch(args, arg, spill, pipeline, listing, check, threads, jobs, memory);
+			return;
+		}
 		
 		//Ensure file exists with the name
-		String fileName = args[0];
-		BufferedReader file = null;
+		String fileName = args[arg];
+		if (watch) {
+			watch(Paths.get(fileName), threads, listing, check);
+			return;
+		}
+		byte[] file = null;
 		try {
-			file = new BufferedReader(new FileReader(fileName));
-		} catch (FileNotFoundException e) {
+			file = Files.readAllBytes(Paths.get(fileName));
+		} catch (IOException e) {
 			System.err.println("Cannot open file '" + fileName + "'!");
 			System.exit(2);
 		}
 		//Do pass one
 		SicXeAssm assm = new SicXeAssm(file);
+		if (spill) {
+			assm.spill(Paths.get(fileName + ".int"));
+		}
+		if (threads > 0) {
+			assm.setThreads(threads);
+		}
+		assm.setPipeline(pipeline);
+		assm.setListing(listing);
+		if (onePass) {
+			onePass(assm, fileName);
+			return;
+		}
+		assemble(assm, fileName, listing, check);
+	}
+	
+	//Runs both passes, creating the .lst and .obj files
+	private static void assemble(SicXeAssm assm, String fileName, boolean listing, boolean check) {
 		try {	
 			assm.passOne();
 		} catch (AssembleError e) {
@@ -180,25 +345,180 @@ public class SicXeAssm {
 		}
 		//Open .lst and .obj files
 		PrintWriter lst = null;
+		if (listing) {
+			try {
+				lst = new PrintWriter(fileName + ".lst");
+			} catch (FileNotFoundException e) {
+				System.err.println("Cannot create listing file!");
+				System.exit(3);
+			}
+		}
+		FileChannel obj = check ? null : openObject(fileName);
+		boolean errors = assm.passTwo(lst, obj);
+		if (lst != null) {
+			lst.close();
+		}
+		if (obj != null) {
+			try {
+				obj.close();
+			} catch (IOException e) {
+				System.err.println("Cannot write object file!");
+				System.exit(4);
+			}
+		}
+		//Run pass two, creating .lst and .obj file
+		if (errors && listing) {
+			System.out.println("Assembly errors in pass 2. See listing file.");
+		} else {
+			report(assm, errors);
+		}
+	}
+	
+	//Assembles the file, and again whenever it changes, until the process is
+	//stopped. Each assembly uses the parsed chunks of the last one
+	private static void watch(Path path, int threads, boolean listing, boolean check) {
+		ChunkCache cache = new ChunkCache();
+		Path dir = path.toAbsolutePath().getParent();
+		Path name = path.getFileName();
+		try (WatchService watcher = dir.getFileSystem().newWatchService()) {
+			dir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+			byte[] last = null;
+			while (true) {
+				byte[] file = null;
+				try {
+					file = Files.readAllBytes(path);
+				} catch (IOException e) {
+					//An editor may be replacing the file, so wait for it
+				}
+				if (file != null && !Arrays.equals(file, last)) {
+					long start = System.nanoTime();
+					SicXeAssm assm = new SicXeAssm(file);
+					assm.setChunkCache(cache);
+					if (threads > 0) {
+						assm.setThreads(threads);
+					}
+					assm.setListing(listing);
+					assemble(assm, path.toString(), listing, check);
+					System.out.printf("Parsed %d of %d chunks, %d ms.%n", cache.getParsed(), cache.size(),
+						(System.nanoTime() - start) / 1000000);
+					last = file;
+				}
+				//Wait until the file changes, and then until it has not changed for a moment, 
+				//as it is often written in more than one go
+				boolean changed = false;
+				WatchKey key = watcher.take();
+				while (key != null) {
+					for (WatchEvent<?> event : key.pollEvents()) {
+						changed |= name.equals(event.context()) 
+							|| event.kind() == StandardWatchEventKinds.OVERFLOW;
+					}
+					key.reset();
+					key = changed ? watcher.poll(SETTLE, TimeUnit.MILLISECONDS) : watcher.take();
+				}
+			}
+		} catch (IOException e) {
+			System.err.println("Cannot watch file '" + path + "'!");
+			System.exit(2);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	//Serves assemble requests on standard input, or on the socket if it is not empty
+	private static void serve(String socket, int jobs) {
+		Daemon daemon = new Daemon(jobs);
+		if (socket.isEmpty()) {
+			daemon.serve();
+			return;
+		}
+		try {
+			daemon.serve(Paths.get(socket));
+		} catch (IOException e) {
+			System.err.println("Cannot serve on socket '" + socket + "'!");
+			System.exit(2);
+		}
+	}
+	
+	//Assembles the file in one pass, creating the .obj file
+	private static void onePass(SicXeAssm assm, String fileName) {
+		FileChannel obj = openObject(fileName);
 		try {
-			lst = new PrintWriter(fileName + ".lst");
-		} catch (FileNotFoundException e) {
-			System.err.println("Cannot create listing file!");
-			System.exit(3);
+			assm.onePass(obj);
+		} catch (AssembleError e) {
+			System.out.printf("Syntax error in pass 1 (Row %d, Col %d) %s", 
+				e.getRow(), e.getCol(), e.getMessage());
 		}
-		PrintWriter obj = null;
+		report(assm, assm.hasErrors());
+	}
+	
+	private static FileChannel openObject(String fileName) {
 		try {
-			obj = new PrintWriter(fileName + ".obj");
-		} catch (FileNotFoundException e) {
+			return FileChannel.open(Paths.get(fileName + ".obj"), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		} catch (IOException e) {
 			System.err.println("Cannot create object file!");
 			System.exit(4);
+			return null;
 		}
-		boolean errors = assm.passTwo(lst, obj);
-		//Run pass two, creating .lst and .obj file
+	}
+	
+	//Prints the errors, if there are any, without a listing to point to
+	private static void report(SicXeAssm assm, boolean errors) {
 		if (errors) {
-			System.out.println("Assembly errors in pass 2. See listing file.");
+			System.out.println("Assembly errors in pass 2.");
+			for (AssembleError e : assm.getErrors()) {
+				System.out.printf("[ERROR] (Row %d, Col %d) %s%n", e.getRow(), e.getCol(), e.getMessage());
+			}
 		} else {
 			System.out.println("Assembly complete.");
 		}
 	}
+	
+	//Assembles the files named by the arguments from arg on as a batch, and 
+	//reports on each. Exits with 1 if any file did not assemble cleanly
+	private static void batch(String[] args, int arg, boolean spill, boolean pipeline, boolean listing,
+			boolean check, int threads, int jobs, int memory) {
+		List<Path> files = null;
+		try {
+			files = Batch.getFiles(args, arg);
+		} catch (IOException e) {
+			System.err.println("Cannot read files: " + e.getMessage() + "!");
+			System.exit(2);
+		}
+		Batch batch = new Batch(jobs, memory);
+		batch.spill(spill);
+		batch.setPipeline(pipeline);
+		batch.setOutput(listing, !check);
+		if (threads > 0) {
+			batch.setThreads(threads);
+		}
+		long start = System.nanoTime();
+		List<Batch.Result> results = null;
+		try {
+			results = batch.run(files);
+		} catch (InterruptedException e) {
+			System.exit(1);
+		}
+		Batch.report(results, (System.nanoTime() - start) / 1000000, System.out);
+		for (Batch.Result result : results) {
+			if (result.getStatus() != Batch.Status.OK) {
+				System.exit(1);
+			}
+		}
+	}
+	
+	//Gets the positive count of an option such as --threads=N, or exits
+	private static int getCount(String arg, String option) {
+		int count = 0;
+		try {
+			count = Integer.parseInt(arg.substring(option.length()));
+		} catch (NumberFormatException e) {
+			count = 0;
+		}
+		if (count < 1) {
+			System.err.println("Invalid option " + arg + "!");
+			System.exit(1);
+		}
+		return count;
+	}
 }
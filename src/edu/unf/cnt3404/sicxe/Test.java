@@ -4,6 +4,8 @@ import java.io.BufferedReader;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.PrintWriter;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 
 import edu.unf.cnt3404.sicxe.parse.AssembleError;
 
@@ -19,7 +21,7 @@ public class Test {
 		}
 		
 		PrintWriter lst = new PrintWriter(System.err);
-		PrintWriter obj = new PrintWriter(System.out);
+		WritableByteChannel obj = Channels.newChannel(System.out);
 		
 		asm.passTwo(lst, obj);
 	}
@@ -1,30 +1,191 @@
 package edu.unf.cnt3404.sicxe.global;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 //Contains static hashtables used for assembly
 public class Global {
 	private Global() {}
 	
-	public static final Map<String, Mnemonic> OPTAB = new HashMap<>();
-	public static final Map<String, Byte> REGISTERS = new HashMap<>();
+	//Unmodifiable, like everything else here once the class is initialized,
+	//so assemblers on any number of threads can share them
+	public static final Map<String, Mnemonic> OPTAB;
+	public static final Map<String, Byte> REGISTERS;
 	
+	//Directive ordinals. Instructions take the ordinals 0 through 58, in the 
+	//order they are put into OPTAB below, and the directives follow them
+	public static final int START = 59;
+	public static final int END = 60;
+	public static final int BASE = 61;
+	public static final int NOBASE = 62;
+	public static final int RESB = 63;
+	public static final int RESW = 64;
+	public static final int BYTE = 65;
+	public static final int WORD = 66;
+	public static final int ORG = 67;
+	public static final int EXTREF = 68;
+	public static final int EXTDEF = 69;
+	public static final int LTORG = 70;
+	public static final int EQU = 71;
+	public static final int CSECT = 72;
+	public static final int USE = 73;
+	
+	//Mnemonics indexed by ordinal, and register names in the order they are put
+	private static final List<Mnemonic> MNEMONICS = new ArrayList<>();
+	private static final List<String> REGISTER_NAMES = new ArrayList<>();
+	//Filled by the static initializer, which then wraps them into OPTAB and REGISTERS
+	private static final Map<String, Mnemonic> MNEMONICS_BY_NAME = new HashMap<>();
+	private static final Map<String, Byte> REGISTER_CODES = new HashMap<>();
+	
+	//Minimal perfect hash over every mnemonic and register name. 
+	//Generated by PerfectHash.main; rerun it after adding a name
+	private static final int[] SEEDS = {
+		0, 1, 0, 14, 0, 26, 8, 0, 0, 6, 7, 11, 0, 12, 9, 6,
+		0, 0, 10, 0, 2, 6, 30, 14, 22, 18, 6, 19, 16, 16, 4, 5,
+		53, 1, 5, 134, 28, 18, 0, 0, 0
+	};
+	private static int[] seeds;
+	//Each slot holds a name and either its mnemonic or its register code (or -1)
+	private static String[] names;
+	private static Mnemonic[] mnemonics;
+	private static byte[] registers;
+	
+	//Finds the slot of the name spelled by the source bytes between start and end,
+	//ignoring case, or returns -1 if the name is not a mnemonic or register
+	private static int slot(byte[] source, int start, int end) {
+		int length = end - start;
+		if (length == 0 || length > 6) {
+			return -1;
+		}
+		int hash = PerfectHash.hash(source, start, end);
+		int slot = PerfectHash.slot(hash, seeds[PerfectHash.bucket(hash, seeds.length)], names.length);
+		String name = names[slot];
+		if (name.length() != length) {
+			return -1;
+		}
+		for (int i = 0; i < length; i++) {
+			int c = source[start + i];
+			if (c >= 'a' && c <= 'z') {
+				c -= 'a' - 'A';
+			}
+			if (c != name.charAt(i)) {
+				return -1;
+			}
+		}
+		return slot;
+	}
+	
+	//Same as above, but for a String
+	private static int slot(String s) {
+		int length = s.length();
+		if (length == 0 || length > 6) {
+			return -1;
+		}
+		int hash = PerfectHash.hash(s);
+		int slot = PerfectHash.slot(hash, seeds[PerfectHash.bucket(hash, seeds.length)], names.length);
+		return names[slot].equalsIgnoreCase(s) ? slot : -1;
+	}
+	
+	//Finds the mnemonic spelled by the source bytes between start and end,
+	//ignoring case, or returns null if there is no such mnemonic
+	public static Mnemonic getMnemonic(byte[] source, int start, int end) {
+		int slot = slot(source, start, end);
+		return slot < 0 ? null : mnemonics[slot];
+	}
+	
+	//Gets the mnemonic with the given ordinal
+	public static Mnemonic getMnemonic(int ordinal) {
+		return MNEMONICS.get(ordinal);
+	}
+	
+	//Finds the code of the register with the given name, ignoring case, 
+	//or returns -1 if there is no such register
+	public static int getRegister(String name) {
+		int slot = slot(name);
+		return slot < 0 ? -1 : registers[slot];
+	}
+	
+	//Same as above, but for the name spelled by the bytes between start and end
+	public static int getRegister(byte[] source, int start, int end) {
+		int slot = slot(source, start, end);
+		return slot < 0 ? -1 : registers[slot];
+	}
+	
+	//Gets every mnemonic name, followed by every register name
+	public static String[] getNames() {
+		String[] result = new String[MNEMONICS.size() + REGISTER_NAMES.size()];
+		int i = 0;
+		for (Mnemonic mnemonic : MNEMONICS) {
+			result[i++] = mnemonic.getName();
+		}
+		for (String register : REGISTER_NAMES) {
+			result[i++] = register;
+		}
+		return result;
+	}
 	
 	//Convenience method so the caller does not have to write out the name twice, 
 	//or cast the opcode to byte
 	private static void putInstruction(String name, int opcode, Format format) {
-		OPTAB.put(name, new Mnemonic(name, (byte)opcode, format));
+		put(new Mnemonic(name, (byte)opcode, format, MNEMONICS.size()));
 	}
 	
 	//Convenience method so the caller does not have to write out the name twice
-	private static void putDirective(String name) {
-		OPTAB.put(name, new Mnemonic(name, (byte)0, null));
+	private static void putDirective(String name, int ordinal) {
+		if (ordinal != MNEMONICS.size()) {
+			throw new IllegalStateException("Directive " + name + " is out of order");
+		}
+		put(new Mnemonic(name, (byte)0, null, ordinal));
+	}
+	
+	private static void put(Mnemonic mnemonic) {
+		MNEMONICS_BY_NAME.put(mnemonic.getName(), mnemonic);
+		MNEMONICS.add(mnemonic);
 	}
 	
 	//Convenience method so the caller does not have to write out the name twice
 	private static void putRegister(String name, int code) {
-		REGISTERS.put(name, (byte)code);
+		REGISTER_CODES.put(name, (byte)code);
+		REGISTER_NAMES.add(name);
+	}
+	
+	//Fills the perfect hash table. If SEEDS no longer fit the names, then
+	//new seeds are searched for, which is slower but still correct
+	private static void buildTable() {
+		String[] all = getNames();
+		seeds = SEEDS;
+		if (!fill(all)) {
+			seeds = PerfectHash.search(all, all.length / 2);
+			fill(all);
+		}
+	}
+	
+	//Places every name in its slot, and returns false if two names collide
+	private static boolean fill(String[] all) {
+		names = new String[all.length];
+		mnemonics = new Mnemonic[all.length];
+		registers = new byte[all.length];
+		if (seeds.length == 0) {
+			return false;
+		}
+		for (int i = 0; i < all.length; i++) {
+			int slot = PerfectHash.slot(PerfectHash.hash(all[i]), 
+				seeds[PerfectHash.bucket(PerfectHash.hash(all[i]), seeds.length)], all.length);
+			if (names[slot] != null) {
+				return false;
+			}
+			names[slot] = all[i];
+			if (i < MNEMONICS.size()) {
+				mnemonics[slot] = MNEMONICS.get(i);
+				registers[slot] = -1;
+			} else {
+				registers[slot] = REGISTER_CODES.get(all[i]);
+			}
+		}
+		return true;
 	}
 	
 	static {
@@ -93,22 +254,22 @@ public class Global {
 		putInstruction("TIO", 	0xF8, Format.FORMAT1);
 		
 		//Implemented directives
-		putDirective("START");
-		putDirective("END");
-		putDirective("BASE");
-		putDirective("NOBASE");
-		putDirective("RESB");
-		putDirective("RESW");
-		putDirective("BYTE");
-		putDirective("WORD");
-		putDirective("ORG");
-		putDirective("EXTREF");
-		putDirective("EXTDEF");
+		putDirective("START", START);
+		putDirective("END", END);
+		putDirective("BASE", BASE);
+		putDirective("NOBASE", NOBASE);
+		putDirective("RESB", RESB);
+		putDirective("RESW", RESW);
+		putDirective("BYTE", BYTE);
+		putDirective("WORD", WORD);
+		putDirective("ORG", ORG);
+		putDirective("EXTREF", EXTREF);
+		putDirective("EXTDEF", EXTDEF);
 		//Not implemented (Parser will recognize which are and aren't)
-		putDirective("LTORG");
-		putDirective("EQU");
-		putDirective("CSECT");
-		putDirective("USE");
+		putDirective("LTORG", LTORG);
+		putDirective("EQU", EQU);
+		putDirective("CSECT", CSECT);
+		putDirective("USE", USE);
 		
 		putRegister("A", 0);
 		putRegister("X", 1);
@@ -119,5 +280,9 @@ public class Global {
 		//7 is probably the CC register
 		putRegister("PC", 8);
 		putRegister("SW", 9);
+		
+		buildTable();
+		OPTAB = Collections.unmodifiableMap(MNEMONICS_BY_NAME);
+		REGISTERS = Collections.unmodifiableMap(REGISTER_CODES);
 	}
 }
@@ -5,14 +5,17 @@ package edu.unf.cnt3404.sicxe.global;
 //Instructions contain name and opcode and Format as expected.
 //Directives contain a null format and meaningless opcode. 
 public class Mnemonic {
-	private String name;
-	private byte opcode;
-	private Format format;
+	private final String name;
+	private final byte opcode;
+	private final Format format;
+	//Dense index of this mnemonic in Global, for switches and array lookups
+	private final int ordinal;
 	
-	public Mnemonic(String name, byte opcode, Format format) {
+	public Mnemonic(String name, byte opcode, Format format, int ordinal) {
 		this.name = name;
 		this.opcode = opcode;
 		this.format = format;
+		this.ordinal = ordinal;
 	}
 	
 	public String getName() {
@@ -26,4 +29,8 @@ public class Mnemonic {
 	public Format getFormat() {
 		return format;
 	}
+	
+	public int getOrdinal() {
+		return ordinal;
+	}
 }
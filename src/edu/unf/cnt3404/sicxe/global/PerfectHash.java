@@ -0,0 +1,115 @@
+package edu.unf.cnt3404.sicxe.global;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+//Hash functions for the minimal perfect hash over mnemonic and register
+//names in Global, and the search that generates its seeds.
+//A name is hashed once, case-insensitively. The hash picks a bucket, and
+//the bucket's seed scrambles the hash again into a slot. The seeds are
+//chosen so that no two names share a slot, and there are exactly as many
+//slots as names.
+//Running main prints the seeds for the names currently in Global.
+public final class PerfectHash {
+	private PerfectHash() {}
+
+	//Hashes the source bytes between start and end, ignoring case
+	public static int hash(byte[] source, int start, int end) {
+		int h = 0x811C9DC5;
+		for (int i = start; i < end; i++) {
+			int c = source[i];
+			if (c >= 'a' && c <= 'z') {
+				c -= 'a' - 'A';
+			}
+			h = (h ^ c) * 0x01000193;
+		}
+		return h;
+	}
+
+	//Same as above, but for a String
+	public static int hash(String name) {
+		int h = 0x811C9DC5;
+		for (int i = 0; i < name.length(); i++) {
+			int c = name.charAt(i);
+			if (c >= 'a' && c <= 'z') {
+				c -= 'a' - 'A';
+			}
+			h = (h ^ c) * 0x01000193;
+		}
+		return h;
+	}
+
+	public static int bucket(int hash, int buckets) {
+		return (hash >>> 1) % buckets;
+	}
+
+	public static int slot(int hash, int seed, int slots) {
+		int h = hash ^ seed;
+		h = (h ^ (h >>> 16)) * 0x85EBCA6B;
+		h = (h ^ (h >>> 13)) * 0xC2B2AE35;
+		h ^= h >>> 16;
+		return (h >>> 1) % slots;
+	}
+
+	//Finds one seed per bucket, such that every name gets its own slot out of
+	//names.length slots. Buckets with the most names are placed first.
+	public static int[] search(String[] names, int buckets) {
+		int slots = names.length;
+		List<List<Integer>> members = new ArrayList<>();
+		for (int b = 0; b < buckets; b++) {
+			members.add(new ArrayList<>());
+		}
+		int[] hashes = new int[slots];
+		for (int i = 0; i < slots; i++) {
+			hashes[i] = hash(names[i]);
+			members.get(bucket(hashes[i], buckets)).add(i);
+		}
+		Integer[] order = new Integer[buckets];
+		for (int b = 0; b < buckets; b++) {
+			order[b] = b;
+		}
+		Arrays.sort(order, (x, y) -> members.get(y).size() - members.get(x).size());
+
+		int[] seeds = new int[buckets];
+		boolean[] taken = new boolean[slots];
+		int[] placed = new int[slots];
+		for (int b : order) {
+			List<Integer> bucket = members.get(b);
+			search:
+			for (int seed = 0; ; seed++) {
+				int count = 0;
+				for (int i : bucket) {
+					int slot = slot(hashes[i], seed, slots);
+					if (taken[slot]) {
+						for (int j = 0; j < count; j++) {
+							taken[placed[j]] = false;
+						}
+						continue search;
+					}
+					taken[slot] = true;
+					placed[count++] = slot;
+				}
+				seeds[b] = seed;
+				break;
+			}
+		}
+		return seeds;
+	}
+
+	public static void main(String[] args) {
+		int[] seeds = search(Global.getNames(), Global.getNames().length / 2);
+		StringBuilder result = new StringBuilder("private static final int[] SEEDS = {");
+		for (int i = 0; i < seeds.length; i++) {
+			if (i % 16 == 0) {
+				result.append("\n\t");
+			}
+			result.append(seeds[i]);
+			if (i < seeds.length - 1) {
+				result.append(i % 16 == 15 ? "," : ", ");
+			}
+		}
+		result.append("\n};");
+		System.out.println(result);
+	}
+}
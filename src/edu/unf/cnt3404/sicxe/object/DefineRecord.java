@@ -1,34 +1,41 @@
 package edu.unf.cnt3404.sicxe.object;
 
-import java.io.PrintWriter;
-
-import edu.unf.cnt3404.sicxe.syntax.Symbol;
-
 public class DefineRecord {
 	//6 is the maximum number of definition-address pair per define record
-	private Symbol[] symbols = new Symbol[6];
+	private String[] names = new String[6];
+	private int[] values = new int[6];
 	private int size;
 	
 	//Attempts to add the symbol to the define record, otherwise,
 	//returns false if the add failed
-	public boolean add(Symbol symbol) {
+	public boolean add(String name, int value) {
 		if (size < 6) {
-			symbols[size++] = symbol;
+			names[size] = name;
+			values[size++] = value;
 			return true;
 		}
 		return false;
 	}
 		
-	public void write(PrintWriter out) {
-		out.print('D');
+	public void write(RecordEncoder out) {
+		write(out, null, 0);
+	}
+	
+	//Writes the record, keeping the position of each value in positions,
+	//from index from on, unless positions is null
+	public void write(RecordEncoder out, long[] positions, int from) {
+		out.put('D');
 		for (int i = 0; i < size; i++) {
-			if (symbols[i] == null) {
-				System.out.println(i + " out of " + size);
-				continue;
+			out.putName(names[i], 6);
+			if (positions != null) {
+				positions[from + i] = out.position();
 			}
-			out.printf("%-6s", symbols[i].getName());
-			out.printf("%06X", symbols[i].getValue());
+			out.putHex(values[i], 6);
 		}
-		out.println();
+		out.newline();
+	}
+	
+	public int size() {
+		return size;
 	}	
 }
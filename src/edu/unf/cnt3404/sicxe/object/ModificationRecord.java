@@ -1,7 +1,5 @@
 package edu.unf.cnt3404.sicxe.object;
 
-import java.io.PrintWriter;
-
 public class ModificationRecord {
 	private int start;
 	private int stride;
@@ -16,12 +14,12 @@ public class ModificationRecord {
 		this.symbol = symbol;
 	}
 	
-	public void write(PrintWriter out) {
-		out.print('M');
-		out.printf("%06X", start);
-		out.printf("%02X", stride);
-		out.print(sign);
-		out.printf("%-6s", symbol);
-		out.println();
+	public void write(RecordEncoder out) {
+		out.put('M');
+		out.putHex(start, 6);
+		out.putHex(stride, 2);
+		out.put(sign);
+		out.putName(symbol, 6);
+		out.newline();
 	}
 }
@@ -0,0 +1,139 @@
+package edu.unf.cnt3404.sicxe.object;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+//Encodes the records of an object program as ASCII bytes into a direct buffer,
+//which goes to a channel in one large write whenever it fills up, and on flush.
+//Hex digits come from a lookup table, and fields are formatted the way printf
+//formats them: %0nX pads a value to n digits but never cuts one, so a negative
+//value takes all 8 digits, and %-ns pads a name to n characters, writing null
+//for a null name. Names are ASCII, like the symbols they come from.
+public class RecordEncoder {
+
+	private static final byte[] HEX = {
+		'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'A', 'B', 'C', 'D', 'E', 'F'
+	};
+	private static final byte[] NEWLINE = System.lineSeparator().getBytes();
+
+	private WritableByteChannel out;
+	private ByteBuffer buffer;
+	//Bytes that went to the channel so far
+	private long written;
+
+	public RecordEncoder(WritableByteChannel out) {
+		this(out, 1 << 16);
+	}
+
+	//Creates an encoder whose buffer holds capacity bytes. The capacity must
+	//hold the longest fixed part of a record, which is a text record
+	public RecordEncoder(WritableByteChannel out, int capacity) {
+		this.out = out;
+		buffer = ByteBuffer.allocateDirect(Math.max(capacity, 128));
+	}
+
+	//Writes a record type, or any other ASCII character
+	public void put(char c) {
+		ensure(1);
+		buffer.put((byte)c);
+	}
+
+	//Writes the value in upper case hex, padded with zeros to width digits
+	public void putHex(int value, int width) {
+		int digits = Math.max(width, (35 - Integer.numberOfLeadingZeros(value)) >> 2);
+		ensure(digits);
+		for (int i = digits - 1; i >= 8; i--) {
+			buffer.put((byte)'0');
+		}
+		for (int shift = (Math.min(digits, 8) - 1) * 4; shift >= 0; shift -= 4) {
+			buffer.put(HEX[(value >>> shift) & 0xF]);
+		}
+	}
+
+	//Writes each of the bytes, as two hex digits
+	public void putHex(byte[] bytes, int start, int length) {
+		ensure(2 * length);
+		for (int i = start; i < start + length; i++) {
+			int b = bytes[i];
+			buffer.put(HEX[(b >> 4) & 0xF]);
+			buffer.put(HEX[b & 0xF]);
+		}
+	}
+
+	//Writes the name, padded with spaces on the right to width characters
+	public void putName(String name, int width) {
+		if (name == null) {
+			name = "null";
+		}
+		int length = name.length();
+		for (int i = 0; i < Math.max(length, width); i++) {
+			ensure(1);
+			buffer.put(i < length ? (byte)name.charAt(i) : (byte)' ');
+		}
+	}
+
+	//Gets the position in the output of the next byte written
+	public long position() {
+		return written + buffer.position();
+	}
+
+	//Overwrites the width hex digits at the position, which came from putHex, 
+	//with the value. Returns false, and writes nothing, if the value needs more 
+	//digits. Digits that went to the channel already are written again at their 
+	//position, which only a file can do
+	public boolean patchHex(long position, int value, int width) {
+		if ((35 - Integer.numberOfLeadingZeros(value)) >> 2 > width) {
+			return false;
+		}
+		ByteBuffer digits = ByteBuffer.allocate(width);
+		for (int shift = (width - 1) * 4; shift >= 0; shift -= 4) {
+			digits.put(shift >= 32 ? (byte)'0' : HEX[(value >>> shift) & 0xF]);
+		}
+		digits.flip();
+		if (position >= written) {
+			buffer.put((int)(position - written), digits.array());
+			return true;
+		}
+		if (!(out instanceof FileChannel)) {
+			throw new IllegalStateException("Cannot patch a record that was written to a stream");
+		}
+		flush();
+		try {
+			while (digits.hasRemaining()) {
+				((FileChannel)out).write(digits, position + digits.position());
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return true;
+	}
+
+	//Ends the current record
+	public void newline() {
+		ensure(NEWLINE.length);
+		buffer.put(NEWLINE);
+	}
+
+	//Writes the buffered bytes to the channel
+	public void flush() {
+		buffer.flip();
+		try {
+			while (buffer.hasRemaining()) {
+				written += out.write(buffer);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			buffer.clear();
+		}
+	}
+
+	private void ensure(int length) {
+		if (buffer.remaining() < length) {
+			flush();
+		}
+	}
+}
@@ -1,7 +1,5 @@
 package edu.unf.cnt3404.sicxe.object;
 
-import java.io.PrintWriter;
-
 public class ReferRecord {
 	
 	//12 is the maximum number of references per refer record
@@ -18,11 +16,11 @@ public class ReferRecord {
 		return false;
 	}
 	
-	public void write(PrintWriter out) {
-		out.print('R');
+	public void write(RecordEncoder out) {
+		out.put('R');
 		for (int i = 0; i < size; i++) {
-			out.printf("%-6s", symbols[i]);
+			out.putName(symbols[i], 6);
 		}
-		out.println();
+		out.newline();
 	}
 }
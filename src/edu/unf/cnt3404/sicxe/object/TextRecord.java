@@ -1,9 +1,5 @@
 package edu.unf.cnt3404.sicxe.object;
 
-import java.io.PrintWriter;
-
-import edu.unf.cnt3404.sicxe.syntax.command.WriteableCommand;
-
 public class TextRecord {
 	
 	private int start;
@@ -15,14 +11,24 @@ public class TextRecord {
 		this.start = start;
 	}
 	
-	//Attempts to add the command to this record, and returns whether 
-	//the add was successful
-	public boolean add(WriteableCommand c) {
-		if (size + c.getSize() > 30) {
+	//Attempts to add length bytes of code, starting at pos, to this record, 
+	//and returns whether the add was successful
+	public boolean add(byte[] code, int pos, int length) {
+		if (size + length > 30) {
 			return false; //Too large of a command
 		}
-		c.write(buffer, size);
-		size += c.getSize();
+		System.arraycopy(code, pos, buffer, size, length);
+		size += length;
+		return true;
+	}
+	
+	//Attempts to overwrite the code at the location, which must lie within
+	//this record, with length bytes of code, starting at pos
+	public boolean patch(int location, byte[] code, int pos, int length) {
+		if (location < start || location + length > start + size) {
+			return false;
+		}
+		System.arraycopy(code, pos, buffer, location - start, length);
 		return true;
 	}
 	
@@ -30,13 +36,11 @@ public class TextRecord {
 		return size == 0;
 	}
 	
-	public void write(PrintWriter out) {
-		out.print('T');
-		out.printf("%06X", start);
-		out.printf("%02X", size);
-		for (int i = 0; i < size; i++) {
-			out.printf("%02X", buffer[i]);
-		}
-		out.println();
+	public void write(RecordEncoder out) {
+		out.put('T');
+		out.putHex(start, 6);
+		out.putHex(size, 2);
+		out.putHex(buffer, 0, size);
+		out.newline();
 	}
 }
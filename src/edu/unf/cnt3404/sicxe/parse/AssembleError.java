@@ -1,14 +1,16 @@
 package edu.unf.cnt3404.sicxe.parse;
 
-
+//An error in the source. Malformed source makes many of these, and where an
+//error was found in the assembler is no use to anyone, so an AssembleError
+//captures no stack trace.
 @SuppressWarnings("serial")
 public class AssembleError extends Exception implements Locatable {
 
 	private int row;
 	private int col;
 	
-	private AssembleError(int row, int col, String message) {
-		super(message);
+	public AssembleError(int row, int col, String message) {
+		super(message, null, false, false);
 		this.row = row;
 		this.col = col;
 	}
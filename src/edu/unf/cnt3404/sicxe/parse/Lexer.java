@@ -2,270 +2,410 @@ package edu.unf.cnt3404.sicxe.parse;
 
 import edu.unf.cnt3404.sicxe.global.Global;
 import edu.unf.cnt3404.sicxe.global.Mnemonic;
-import edu.unf.cnt3404.sicxe.parse.Token;
 import edu.unf.cnt3404.sicxe.syntax.Data;
+import edu.unf.cnt3404.sicxe.syntax.SymbolTable;
 import edu.unf.cnt3404.sicxe.syntax.data.AsciiData;
 import edu.unf.cnt3404.sicxe.syntax.data.HexData;
 
-//Reads many characters at a time and creates tokens
+//Reads many characters at a time and recognizes tokens.
+//There are no token objects: the current token lives in the fields below,
+//and stays valid until the lexer is asked to look at the next token.
 public class Lexer implements Locatable {
-	
+
 	private static final String SIMPLE_CHARACTERS = "#@,+-*/()";
+
+	//Character classes. Every byte of the source maps to exactly one
+	private static final byte OTHER = 0;
+	private static final byte WHITESPACE = 1;
+	private static final byte NEWLINE = 2;
+	private static final byte DIGIT = 3;
+	private static final byte LETTER = 4; //Includes underscore
+	private static final byte DOT = 5;
+	private static final byte SIMPLE = 6;
+	
+	//Maps each byte to its character class, so no character is ever
+	//classified by more than one array lookup
+	private static final byte[] CLASSES = new byte[256];
+	//Maps each byte to its upper case byte
+	private static final byte[] UPPER = new byte[256];
+	
+	static {
+		CLASSES[' '] = CLASSES['\t'] = WHITESPACE;
+		CLASSES['\n'] = CLASSES['\r'] = NEWLINE;
+		for (char c = '0'; c <= '9'; c++) {
+			CLASSES[c] = DIGIT;
+		}
+		for (char c = 'A'; c <= 'Z'; c++) {
+			CLASSES[c] = CLASSES[c + ('a' - 'A')] = LETTER;
+		}
+		CLASSES['_'] = LETTER;
+		CLASSES['.'] = DOT;
+		for (char c : SIMPLE_CHARACTERS.toCharArray()) {
+			CLASSES[c] = SIMPLE;
+		}
+		for (int i = 0; i < 256; i++) {
+			UPPER[i] = (byte)(i >= 'a' && i <= 'z' ? i - ('a' - 'A') : i);
+		}
+	}
+	
+	//Problems that stop lexing a token
+	private static final int OK = 0;
+	private static final int END_OF_STREAM = 1;
+	private static final int NUMBER_TOO_LARGE = 2;
+	private static final int UNCLOSED_DATA = 3;
+	private static final int ODD_HEX_DATA = 4;
+	private static final int BAD_CHARACTER = 5;
 	
 	private Scanner scanner;
-	//For peaking: If null, then a call to peek() needs to invoke next(),
-	//and then make buffer non-null.
-	//Otherwise, a call to peek() will yield the buffer.
-	private Token buffer; 
+	private SymbolTable symbols;
+	private byte[] source;
+	private int length;
+	//Whether to skip long runs eight bytes at a time
+	private boolean wide;
+
+	//For peeking: If false, then a call to hasNext() needs to lex the next
+	//token into the fields. Otherwise, the fields already hold the next token.
+	private boolean buffered;
+
+	//The current token
+	private TokenType type;
+	//Source offset where the token begins, for error locations
+	private int offset;
+	//Source offsets of the token's text (symbol, comment, or data contents)
+	private int start;
+	private int end;
+	//Number value, symbol id, simple character, or data prefix letter
+	private int value;
+	private Mnemonic mnemonic;
+	//The character of the last BAD_CHARACTER problem
+	private char badCharacter;
+
+	//Creates a lexer over the scanner's source, which interns symbols
+	//into the given table
+	public Lexer(Scanner scanner, SymbolTable symbols) {
+		this(scanner, symbols, true);
+	}
 	
-	//Creates a lexer from a buffered reader. The reader can be from a file
-	//Or from the standard in, etc.
-	public Lexer(Scanner scanner) {
+	//Creates a lexer that skips whitespace, comments, and ascii data
+	//eight bytes at a time if wide is true, or one byte at a time otherwise
+	public Lexer(Scanner scanner, SymbolTable symbols, boolean wide) {
 		this.scanner = scanner;
+		this.symbols = symbols;
+		this.source = scanner.getSource();
+		this.length = scanner.getLength();
+		this.wide = wide;
 	}
 
 	@Override
 	public int getRow() {
 		return scanner.getRow();
 	}
-	
+
 	@Override
 	public int getCol() {
 		return scanner.getCol();
 	}
-	
-	private boolean isLineSeparator(char c) {
-		return c == '\n' || c == '\r';
-	}
-	
-	private boolean isWhitespace(char c) {
-		return c == '\t' || c == ' ';
-	}
-	
-	private boolean isSimple(char c) {
-		return SIMPLE_CHARACTERS.contains(Character.toString(c));
+
+	private int classOf(int offset) {
+		return offset < length ? CLASSES[source[offset] & 0xFF] : OTHER;
 	}
 	
-	//Gets the next token and consumes it.
+	//Consumes the next token, leaving it in the token fields.
 	//Throws an exception if there is no available token.
-	//Never returns null
-	public Token next() throws AssembleError {
-		//If buffer is not null, then there was a call to peek() AFTER the last 
+	private void next() throws AssembleError {
+		//If buffered, then there was a call to hasNext() AFTER the last 
 		//call to next(). in other words, only consume the buffer
-		if (buffer != null) {
-			Token result = buffer;
-			buffer = null;
-			return result;
+		if (buffered) {
+			buffered = false;
+			return;
 		}
-		char c;
-		int row = scanner.getRow();
-		int col = scanner.getCol();
-		if ((c = Character.toUpperCase(scanner.next())) == Scanner.EOS) {
-			throw new AssembleError(scanner, "Expected token not end of stream");	
+		int problem = lex();
+		if (problem != OK) {
+			throw new AssembleError(scanner, describeProblem(problem));
 		}
-		if (isWhitespace(c)) {
+	}
+	
+	//Lexes the next token into the token fields, and returns OK, or else the
+	//problem that stopped it, with the scanner just past the problem
+	private int lex() {
+		int pos = offset = scanner.getOffset();
+		if (pos >= length) {
+			scanner.setOffset(pos + 1); //Consuming the end moves the column
+			return END_OF_STREAM;
+		}
+		int c = UPPER[source[pos++] & 0xFF] & 0xFF;
+		switch (CLASSES[c]) {
+		case WHITESPACE:
 			//Many sequential whitespace chars will yield a single whitespace token
-			while (isWhitespace(c = scanner.peek())) {
-				scanner.next();
+			pos = wide ? WordSkipper.skipWhitespace(source, pos, length) : skipWhitespace(pos);
+			type = TokenType.WHITESPACE;
+			break;
+		case NEWLINE:
+			if (c == '\r' && pos < length && source[pos] == '\n') {
+				pos++; //Microsoft line terminator
 			}
-			return Token.whitespace(row, col);
-		}
-		if (isLineSeparator(c)) {
-			Token result = Token.newline(row, col);
-			row++;
-			col = 1;
-			return result;
-		}
-		if (Character.isDigit(c)) {
-			StringBuilder number = new StringBuilder();
-			number.append(c);
+			type = TokenType.NEWLINE;
+			break;
+		case DIGIT:
+			int number = c - '0';
 			//read all digits
-			while (Character.isDigit(c = Character.toUpperCase(scanner.peek())) 
-				&& c != Scanner.EOS) {
-				scanner.next();
-				number.append(c);
+			while (classOf(pos) == DIGIT) {
+				int digit = source[pos] - '0';
+				if (number > (Integer.MAX_VALUE - digit) / 10) {
+					scanner.setOffset(pos);
+					return NUMBER_TOO_LARGE;
+				}
+				number = number * 10 + digit;
+				pos++;
 			}
-			//c is the first non-digit
-			//All characters of number satisfied isDigit, so parseInt should
-			//never throw an exception
-			return Token.number(row, col, Integer.parseInt(number.toString()));
-		}
-		if (c == '.') {
-			StringBuilder comment = new StringBuilder();
+			type = TokenType.NUMBER;
+			value = number;
+			break;
+		case DOT:
 			//read until the next line
-			while (!isLineSeparator(c = scanner.peek()) && c != Scanner.EOS) {
-				scanner.next();
-				comment.append(c);
-			}
-			return Token.comment(row, col, comment.toString());
-		}
-		if (Character.isLetter(c) || c == '_') {
-			StringBuilder string = new StringBuilder();
-			if (scanner.peek() == '\'') {
-				scanner.next(); //Consume the open quote
-				//A data instead
-				boolean isAscii = c == 'C'; //Otherwise, is hex
+			start = pos;
+			pos = wide ? WordSkipper.skipToLineEnd(source, pos, length) : skipToLineEnd(pos);
+			end = pos;
+			type = TokenType.COMMENT;
+			break;
+		case LETTER:
+			if (pos < length && source[pos] == '\'') {
+				//A data instead. C is ascii, otherwise, is hex
+				value = c;
+				start = ++pos; //Consume the open quote
 				//Read until the next quote
-				//Don't upper case
-				while ((c = scanner.next()) != '\'' && c != Scanner.EOS) {
-					string.append(c);
+				pos = wide ? WordSkipper.skipToQuote(source, pos, length) : skipToQuote(pos);
+				if (pos >= length) {
+					scanner.setOffset(length + 1); //The end of stream was consumed
+					return UNCLOSED_DATA;
 				}
-				//c was not a quote
-				if (c == Scanner.EOS) {
-					throw new AssembleError(scanner, "Expected ' not end of stream");
-				}
-				//Create the data object
-				Data data;
-				if (isAscii) {
-					data = new AsciiData(string.toString());
-				} else if (string.length() % 2 != 0) {
+				end = pos++; //Consume the close quote
+				if (value != 'C' && (end - start) % 2 != 0) {
 					//Odd lengthed hex data
-					throw new AssembleError(scanner, "Hex data must be of even legnth");
-				} else {
-					data = new HexData(string.toString());
+					scanner.setOffset(pos);
+					return ODD_HEX_DATA;
 				}
-				return Token.data(row, col, data);
+				type = TokenType.DATA;
+				break;
 			}
-			string.append(c);
-			while ((Character.isLetter(c = Character.toUpperCase(scanner.peek())) 
-				|| Character.isDigit(c) || c == '_') && c != Scanner.EOS) {
-				scanner.next();
-				string.append(c);
+			start = offset;
+			int cls;
+			while ((cls = classOf(pos)) == LETTER || cls == DIGIT) {
+				pos++;
 			}
-			String s = string.toString();
+			end = pos;
 			
 			//Check if the string is a mnemonic
-			Mnemonic mnemonic = Global.OPTAB.get(s);
+			mnemonic = Global.getMnemonic(source, start, end);
 			if (mnemonic != null) {
-				return Token.mnemonic(row, col, mnemonic);
+				type = TokenType.MNEMONIC;
+			} else {
+				type = TokenType.SYMBOL;
+				value = symbols.intern(source, start, end);
 			}
-			
-			return Token.symbol(row, col, string.toString());
+			break;
+		case SIMPLE:
+			type = TokenType.SIMPLE;
+			value = c;
+			break;
+		default:
+			scanner.setOffset(pos);
+			badCharacter = (char)c;
+			return BAD_CHARACTER;
 		}
-		if(isSimple(c)) {
-			return Token.simple(row, col, c);
+		scanner.setOffset(pos);
+		return OK;
+	}
+	
+	//Describes a problem that lex() returned
+	private String describeProblem(int problem) {
+		switch(problem) {
+		case END_OF_STREAM: return "Expected token not end of stream";
+		case NUMBER_TOO_LARGE: return "Number too large";
+		case UNCLOSED_DATA: return "Expected ' not end of stream";
+		case ODD_HEX_DATA: return "Hex data must be of even legnth";
+		case BAD_CHARACTER: return "Bad character " + badCharacter;
+		default: throw new IllegalStateException(Integer.toString(problem));
+		}
+	}
+	
+	//Scalar versions of the WordSkipper methods
+	private int skipWhitespace(int pos) {
+		while (classOf(pos) == WHITESPACE) {
+			pos++;
+		}
+		return pos;
+	}
+	
+	private int skipToLineEnd(int pos) {
+		while (pos < length && CLASSES[source[pos] & 0xFF] != NEWLINE) {
+			pos++;
+		}
+		return pos;
+	}
+	
+	private int skipToQuote(int pos) {
+		while (pos < length && source[pos] != '\'') {
+			pos++;
 		}
-		throw new AssembleError(scanner, "Bad character " + c);
+		return pos;
 	}
 	
-	//Gets the next token but doesn't consume it
-	//Returns null if there are no more tokens
-	public Token peek() {
-		if (buffer == null) {
-			if (scanner.peek() == Scanner.EOS) {
-				return null;
+	//Lexes the next token but doesn't consume it
+	//Returns false if there are no more tokens
+	public boolean hasNext() {
+		if (!buffered) {
+			if (scanner.getOffset() >= length) {
+				return false;
 			}
-			try {
-				return buffer = next();
-			} catch (AssembleError e) {
-				return null;
+			//A token that cannot be lexed is no next token
+			if (lex() != OK) {
+				return false;
 			}
-		} 
-		return buffer;
+			buffered = true;
+		}
+		return true;
 	}
-	
+
+	//Consumes the token that hasNext() lexed
+	private void skip() {
+		buffered = false;
+	}
+
+	//Consumes the next token, whatever it is. Returns false if there are no
+	//more tokens
+	public boolean acceptAny() {
+		if (hasNext()) {
+			skip();
+			return true;
+		}
+		return false;
+	}
+
 	//Returns whether the next token is simple and matches the given character
 	//If this method returns true, then the token is consumed.
 	public boolean accept(char c) {
-		Token token = peek();
-		boolean result = token != null && token.is(Token.Type.SIMPLE) && token.is(c);
-		if (result) {
-			try {
-				next();
-			} catch (AssembleError e) {
-				//If next throws an exception, then peek() should have returned null
-				//So result should have been false
-				throw new IllegalStateException();
-			}
+		if (hasNext() && type == TokenType.SIMPLE && value == c) {
+			skip();
+			return true;
 		}
-		return result;
+		return false;
 	}
-	
-	//Return whether the next token is of the given type and returns the token if possible
-	//If this method returns null, then the token was not of the given type
-	private Token accept(Token.Type type) {
-		Token result = peek();
-		if (result != null && result.is(type)) {
-			try {
-				next();
-			} catch (AssembleError e) {
-				//If next throws an exception, then peek() should have returned null
-				//So result should have been false
-				throw new IllegalStateException();
-			}
-			return result;
+
+	//Return whether the next token is of the given type, and consumes it if so
+	private boolean accept(TokenType type) {
+		if (hasNext() && this.type == type) {
+			skip();
+			return true;
 		}
-		return null;
+		return false;
 	}
-	
+
 	public boolean acceptWhitespace() {
-		return accept(Token.Type.WHITESPACE) != null;
+		return accept(TokenType.WHITESPACE);
 	}
-	
+
 	public boolean acceptNewline() {
-		return accept(Token.Type.NEWLINE) != null;
+		return accept(TokenType.NEWLINE);
 	}
-	
+
+	//Returns the text of the comment, or null if the next token is not a comment
 	public String acceptComment() {
-		Token token = accept(Token.Type.COMMENT);
-		if (token != null) {
-			return token.asComment();
+		if (accept(TokenType.COMMENT)) {
+			return scanner.getText(start, end);
 		}
 		return null;
 	}
-	
-	public String acceptSymbol() {
-		Token token = accept(Token.Type.SYMBOL);
-		if (token != null) {
-			return token.asSymbol();
+
+	//Returns the id of the symbol, or -1 if the next token is not a symbol
+	public int acceptSymbol() {
+		if (accept(TokenType.SYMBOL)) {
+			return value;
 		}
-		return null;
+		return -1;
 	}
-	
-	public Integer acceptNumber() {
-		Token token = accept(Token.Type.NUMBER);
-		if (token != null) {
-			return token.asNumber();
+
+	//Returns the number, or -1 if the next token is not a number.
+	//Number tokens are never negative
+	public int acceptNumber() {
+		if (accept(TokenType.NUMBER)) {
+			return value;
 		}
-		return null;
+		return -1;
 	}
-	
-	//Parses the next token and returns, or throws an exception if the next token was not
+
+	//Parses the next token, or throws an exception if the next token was not
 	//a simple token, or did not match the given character.
 	public void expect(char c) throws AssembleError {
-		Token token = next();
-		if (!token.is(Token.Type.SIMPLE) || !token.is(c)) {
-			throw new AssembleError(token, "Expected " + c + " not " + token);
+		next();
+		if (type != TokenType.SIMPLE || value != c) {
+			throw new AssembleError(scanner.getRow(offset), scanner.getCol(offset),
+				"Expected " + c + " not " + describe());
 		}
 	}
-	
-	//Parses the next token and returns it, or throws an exception if the next token was 
+
+	//Parses the next token, or throws an exception if the next token was
 	//not of the given type
-	private Token expect(Token.Type type) throws AssembleError {
-		Token result = next();
-		if (!result.is(type)) {
-			throw new AssembleError(result, "Expected " + type + " not " + result);
+	private void expect(TokenType type) throws AssembleError {
+		next();
+		if (this.type != type) {
+			throw new AssembleError(scanner.getRow(offset), scanner.getCol(offset),
+				"Expected " + type + " not " + describe());
 		}
-		return result;
 	}
-	
+
 	public void expectWhitespace() throws AssembleError {
-		expect(Token.Type.WHITESPACE);
+		expect(TokenType.WHITESPACE);
 	}
-	
+
 	public Mnemonic expectMnemonic() throws AssembleError {
-		return expect(Token.Type.MNEMONIC).asMnemonic();
+		expect(TokenType.MNEMONIC);
+		return mnemonic;
 	}
-	
+
 	public int expectNumber() throws AssembleError {
-		return expect(Token.Type.NUMBER).asNumber();
+		expect(TokenType.NUMBER);
+		return value;
 	}
 
-	public String expectSymbol() throws AssembleError {
-		return expect(Token.Type.SYMBOL).asSymbol();
+	//Returns the id of the symbol
+	public int expectSymbol() throws AssembleError {
+		expect(TokenType.SYMBOL);
+		return value;
 	}
-	
+
 	public Data expectData() throws AssembleError {
-		return expect(Token.Type.DATA).asData();
+		expect(TokenType.DATA);
+		String text = scanner.getText(start, end);
+		if (value == 'C') {
+			return new AsciiData(text);
+		}
+		return new HexData(text);
+	}
+
+	//Returns a description of the next token for error messages.
+	//Only call this after hasNext() returned true
+	public String describeNext() {
+		return describe();
+	}
+
+	//Gets the table that symbols are interned into
+	public SymbolTable getSymbols() {
+		return symbols;
+	}
+
+	//Describes the current token
+	private String describe() {
+		switch(type) {
+		case NUMBER: return Integer.toString(value);
+		case SYMBOL: return symbols.getName(value);
+		case COMMENT: return scanner.getText(start, end);
+		case DATA: return (value == 'C' ? "C'" : "X'") + scanner.getText(start, end) + "'";
+		case SIMPLE: return Character.toString((char)value);
+		case WHITESPACE: return "whitespace";
+		case NEWLINE: return "newline";
+		case MNEMONIC: return mnemonic.getName();
+		default: throw new IllegalStateException(type.toString());
+		}
 	}
 }
@@ -1,10 +1,9 @@
 package edu.unf.cnt3404.sicxe.parse;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Stack;
+import java.util.Arrays;
 
 import edu.unf.cnt3404.sicxe.global.Format;
+import edu.unf.cnt3404.sicxe.global.Global;
 import edu.unf.cnt3404.sicxe.global.Mnemonic;
 import edu.unf.cnt3404.sicxe.syntax.Command;
 import edu.unf.cnt3404.sicxe.syntax.Data;
@@ -33,8 +32,19 @@ import edu.unf.cnt3404.sicxe.syntax.expression.ExpressionSymbol;
 //Calls the lexer repeatedly in order to create Commands.
 public class Parser implements Locatable {
 	
+	//Marks an open parentheses on the operator stack
+	private static final int PARENTHESIS = -1;
+	private static final ExpressionOperator.Type[] OPERATORS = ExpressionOperator.Type.values();
+	
 	private Lexer lexer;
 	
+	//Expression stacks, reused by every call to parseExpression.
+	//Operators are ordinals of ExpressionOperator.Type, or PARENTHESIS
+	private ExpressionNode[] nodes = new ExpressionNode[16];
+	private int nodeCount;
+	private int[] operators = new int[16];
+	private int operatorCount;
+	
 	//Creates a parser from the reader
 	public Parser(Lexer lexer) {
 		this.lexer = lexer;
@@ -47,7 +57,7 @@ public class Parser implements Locatable {
 		while (lexer.acceptWhitespace() || lexer.acceptNewline());
 		
 		//Check for end
-		if (lexer.peek() == null) {
+		if (!lexer.hasNext()) {
 			return null;
 		}
 		
@@ -63,8 +73,8 @@ public class Parser implements Locatable {
 		//Non-comment that has a label and mnemonic
 		} else {
 			//See if there's a label
-			String label = lexer.acceptSymbol();
-			if (label != null) {
+			int label = lexer.acceptSymbol();
+			if (label >= 0) {
 				lexer.expectWhitespace();
 			}
 			
@@ -77,17 +87,17 @@ public class Parser implements Locatable {
 			//Parse the rest of it, which depends on the Mnemonic itself
 			if (mnemonic.getFormat() == null) {
 				//Directive
-				switch(mnemonic.getName()) {
-				case "START": result = parseStartDirective(); break;
-				case "END": result = parseEndDirective(); break;
-				case "RESB": result = parseResbDirective(); break;
-				case "RESW": result = parseReswDirective(); break;
-				case "BYTE": result = parseByteDirective(); break;
-				case "WORD": result = parseWordDirective(); break;
-				case "BASE": result = parseBaseDirective(); break;
-				case "EXTDEF": result = parseExtdefDirective(); break;
-				case "EXTREF": result = parseExtrefDirective(); break;
-				case "ORG": result = parseOrgDirective(); break;
+				switch(mnemonic.getOrdinal()) {
+				case Global.START: result = parseStartDirective(); break;
+				case Global.END: result = parseEndDirective(); break;
+				case Global.RESB: result = parseResbDirective(); break;
+				case Global.RESW: result = parseReswDirective(); break;
+				case Global.BYTE: result = parseByteDirective(); break;
+				case Global.WORD: result = parseWordDirective(); break;
+				case Global.BASE: result = parseBaseDirective(); break;
+				case Global.EXTDEF: result = parseExtdefDirective(); break;
+				case Global.EXTREF: result = parseExtrefDirective(); break;
+				case Global.ORG: result = parseOrgDirective(); break;
 				default: throw new AssembleError(lexer, "Directive " + mnemonic.getName() + " not implemented");
 				}
 			} else {
@@ -124,8 +134,8 @@ public class Parser implements Locatable {
 		while (lexer.acceptWhitespace());
 		
 		//If there's not newline, but still a token, then complain!
-		if (!lexer.acceptNewline() && lexer.peek() != null) {
-			throw new AssembleError(lexer, "Expected newline or end of stream not " + lexer.peek());
+		if (!lexer.acceptNewline() && lexer.hasNext()) {
+			throw new AssembleError(lexer, "Expected newline or end of stream not " + lexer.describeNext());
 		}
 		result.setLine(line);
 		result.setComment(comment);
@@ -143,22 +153,22 @@ public class Parser implements Locatable {
 	
 	private Command parseFormat2RCommand() throws AssembleError {
 		lexer.expectWhitespace();
-		String r = lexer.expectSymbol();
+		int r = lexer.expectSymbol();
 		return new Format2Instruction(r);
 	}
 	
 	private Command parseFormat2RRCommand() throws AssembleError {
 		lexer.expectWhitespace();
-		String r1 = lexer.expectSymbol();
+		int r1 = lexer.expectSymbol();
 		lexer.expect(',');
-		String r2 = lexer.expectSymbol();
+		int r2 = lexer.expectSymbol();
 		
 		return new Format2Instruction(r1, r2);
 	}
 	
 	private Command parseFormat2RNCommand() throws AssembleError {
 		lexer.expectWhitespace();
-		String r = lexer.expectSymbol();
+		int r = lexer.expectSymbol();
 		lexer.expect(',');
 		int n = lexer.expectNumber();
 		return new Format2Instruction(r, (byte)n);
@@ -184,9 +194,9 @@ public class Parser implements Locatable {
 		boolean indexed = false;
 		//See if it's indexed or not
 		if (lexer.accept(',')) {
-			String x = lexer.expectSymbol();
-			if (!x.equals("X")) {
-				throw new AssembleError(lexer, "Expected X not " + x);
+			int x = lexer.expectSymbol();
+			if (!lexer.getSymbols().is(x, "X")) {
+				throw new AssembleError(lexer, "Expected X not " + lexer.getSymbols().getName(x));
 			}
 			indexed = true;
 		}
@@ -240,20 +250,25 @@ public class Parser implements Locatable {
 	
 	private Command parseExtrefDirective() throws AssembleError {
 		lexer.expectWhitespace();
-		List<String> symbols = new ArrayList<>();
-		do {
-			symbols.add(lexer.expectSymbol());
-		} while (lexer.accept(','));
-		return new ExtrefDirective(symbols);
+		return new ExtrefDirective(parseSymbolList());
 	}
 	
 	private Command parseExtdefDirective() throws AssembleError {
 		lexer.expectWhitespace();
-		List<String> symbols = new ArrayList<>();
+		return new ExtdefDirective(parseSymbolList());
+	}
+	
+	//Parses one or more symbols separated by commas, returning their ids
+	private int[] parseSymbolList() throws AssembleError {
+		int[] symbols = new int[4];
+		int count = 0;
 		do {
-			symbols.add(lexer.expectSymbol());
+			if (count == symbols.length) {
+				symbols = Arrays.copyOf(symbols, count * 2);
+			}
+			symbols[count++] = lexer.expectSymbol();
 		} while (lexer.accept(','));
-		return new ExtdefDirective(symbols);
+		return Arrays.copyOf(symbols, count);
 	}
 	
 	private Command parseOrgDirective() throws AssembleError {
@@ -264,102 +279,117 @@ public class Parser implements Locatable {
 	//Attempts to parse an expression. Will stop parsing when the lexer reaches a newline
 	//token, a comment token, or an illegal token. Throws an exception if an illegal token 
 	//is reached. Implements Dijkstra's Shunting-Yard Algorithm to turn an infix
-	//arithmetic expression into a syntax tree
+	//arithmetic expression into a syntax tree. The stacks are fields that every
+	//call reuses, so the only objects created are the nodes of the result.
 	public Expression parseExpression() throws AssembleError {
-		Stack<ExpressionNode> nodes = new Stack<>();
-		//Null element in operators indicates parentheses
-		Stack<ExpressionOperator.Type> operators = new Stack<>();
+		nodeCount = 0;
+		operatorCount = 0;
 		//This flag toggles between tokens. It is required to distinguish star (*) as a
 		//multiplication operator versus as a location counter operand.
 		boolean expectsOperator = false; //Initially expect a value
 		//While there are tokens to be read
-		while (lexer.peek() != null) {
-			//System.out.println("OPERATORS: " + operators);
-			//System.out.println("OPERANDS: " + nodes);
+		while (lexer.hasNext()) {
 			if (lexer.acceptWhitespace()) {
 				continue;
 			}
 			if (expectsOperator) {
-				ExpressionOperator.Type operator;
+				int operator;
 				//Read the operator
 				if (lexer.accept('+')) {
-					operator = ExpressionOperator.Type.ADD;
+					operator = ExpressionOperator.Type.ADD.ordinal();
 				} else if (lexer.accept('-')) {
-					operator = ExpressionOperator.Type.SUB;
+					operator = ExpressionOperator.Type.SUB.ordinal();
 				} else if (lexer.accept('*')) {
-					operator = ExpressionOperator.Type.MUL;
+					operator = ExpressionOperator.Type.MUL.ordinal();
 				} else if (lexer.accept('/')) {
-					operator = ExpressionOperator.Type.DIV;
+					operator = ExpressionOperator.Type.DIV.ordinal();
 				} else if (lexer.accept(')')) {
-					//Pop while the operator is not a parentheses (null)
-					while (!operators.isEmpty() && operators.peek() != null) {
-						//nodes stack reverses order of the nodes, so right pops off first
-						ExpressionNode right = nodes.pop();
-						ExpressionNode left = nodes.pop();
-						nodes.add(new ExpressionOperator(operators.pop(), left, right));
+					//Pop while the operator is not a parentheses
+					while (operatorCount > 0 && operators[operatorCount - 1] != PARENTHESIS) {
+						reduce();
 					}
-					if (operators.isEmpty()) {
-						//Therefore, peek() never returned null, and there was no opening parentheses
+					if (operatorCount == 0) {
+						//Therefore, there was no opening parentheses
 						throw new AssembleError(lexer, "Did not expect )");
 					}
-					//Otherwise, peek() returned null, so pop it
-					operators.pop();
+					//Otherwise, the top is the parentheses, so pop it
+					operatorCount--;
 					continue; //<-- This is so bad; this is because no operator was read
 					//in this branch, so 1) I cannot push an operator onto the stack, and
 					//2) I should not toggle expectsOperator
 				} else {
-					//throw new ParseError(token, "Expected operator not " + token);
 					break;
 				}
 				//Output higher precedence operators into the tree
-				//If the stack top is ever null, then it is a parentheses on the stack.
-				//Wikipedia did not seem to say what to do, or if this scenario is possible.
-				while (!operators.isEmpty() && operators.peek() != null && 
-						operators.peek().getPrecedence() >= operator.getPrecedence()) {
-					ExpressionNode right = nodes.pop();
-					ExpressionNode left = nodes.pop();
-					nodes.add(new ExpressionOperator(operators.pop(), left, right));
+				//A parentheses on the stack stops the popping.
+				int precedence = OPERATORS[operator].getPrecedence();
+				while (operatorCount > 0 && operators[operatorCount - 1] != PARENTHESIS && 
+						OPERATORS[operators[operatorCount - 1]].getPrecedence() >= precedence) {
+					reduce();
 				}
-				operators.push(operator);
+				pushOperator(operator);
 			} else { //If the parser expects an operand
-				String symbol;
-				Integer number;
+				int symbol;
+				int number;
 				
-				if ((symbol = lexer.acceptSymbol()) != null) {
-					nodes.add(new ExpressionSymbol(symbol));
-				} else if ((number = lexer.acceptNumber()) != null) {
-					nodes.add(new ExpressionNumber(number));
+				if ((symbol = lexer.acceptSymbol()) >= 0) {
+					pushNode(new ExpressionSymbol(symbol));
+				} else if ((number = lexer.acceptNumber()) >= 0) {
+					pushNode(new ExpressionNumber(number));
 				} else if (lexer.accept('*')) {
-					nodes.add(new ExpressionStar());
+					pushNode(new ExpressionStar());
 				} else if (lexer.accept('(')) {
-					operators.push(null);
+					pushOperator(PARENTHESIS);
 					continue; //Continue so that I do not toggle expectsOperator
 				} else {
-					//throw new ParseError(token, "Expected operand not " + token);
 					break;
 				}
 			}
 			expectsOperator = !expectsOperator;
 		}
 		//Pop all excess operators from the stack
-		while(!operators.isEmpty()) {
-			ExpressionOperator.Type operator = operators.pop();
+		while (operatorCount > 0) {
 			//If a parentheses was found on the stack
-			if (operator == null) {
+			if (operators[operatorCount - 1] == PARENTHESIS) {
 				throw new AssembleError(lexer, "Unbalanced parentheses");
 			}
-			//Ensure left is the first dequeue
-			//Pop operator into nodes
-			//nodes stack reverses order of the nodes, so right pops off first
-			ExpressionNode right = nodes.pop();
-			ExpressionNode left = nodes.pop();
-			nodes.add(new ExpressionOperator(operator, left, right));
+			reduce();
 		}
-		if (nodes.size() > 0) {
-			return new Expression(nodes.pop());	
-		} else {
-			return null;
+		Expression result = null;
+		if (nodeCount > 0) {
+			result = new Expression(nodes[--nodeCount]);
+		}
+		//Do not keep nodes of this expression alive through the stack
+		while (nodeCount > 0) {
+			nodes[--nodeCount] = null;
+		}
+		return result;
+	}
+	
+	private void pushNode(ExpressionNode node) {
+		if (nodeCount == nodes.length) {
+			nodes = Arrays.copyOf(nodes, nodeCount * 2);
+		}
+		nodes[nodeCount++] = node;
+	}
+	
+	private void pushOperator(int operator) {
+		if (operatorCount == operators.length) {
+			operators = Arrays.copyOf(operators, operatorCount * 2);
+		}
+		operators[operatorCount++] = operator;
+	}
+	
+	//Pops the top operator and its two operands, and pushes them back as one node
+	private void reduce() throws AssembleError {
+		if (nodeCount < 2) {
+			throw new AssembleError(lexer, "Expected operand");
 		}
+		//nodes stack reverses order of the nodes, so right pops off first
+		ExpressionNode right = nodes[--nodeCount];
+		ExpressionNode left = nodes[--nodeCount];
+		nodes[nodeCount + 1] = null;
+		nodes[nodeCount++] = new ExpressionOperator(OPERATORS[operators[--operatorCount]], left, right);
 	}
 
 	@Override
@@ -2,70 +2,195 @@ package edu.unf.cnt3404.sicxe.parse;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
 
-//Yields a character stream, and keeps track of location
-//in the source code. Also, \r\n, microsoft's line terminator, 
-//will be yielded as a single character \n.
+//Yields a character stream over an ASCII source that was read into memory
+//all at once, and keeps track of location in the source code with a plain
+//cursor. Also, \r\n, microsoft's line terminator, will be yielded as a
+//single character \n.
+//Rows and columns are not tracked while scanning. They are computed from
+//a table of line start offsets only when someone asks for a location.
 public class Scanner implements Locatable {
-	
+
 	public static final char EOS = (char)-1;
+
+	private byte[] source;
+	private int length;
+	//Offset of the next character to consume. Can move past length,
+	//because consuming the end of stream still moves the column forward
+	private int pos;
+	//Offset of the first character. Rows are counted from its line
+	private int first;
+
+	//Offsets of the first character of every line, built on first use
+	private int[] lines;
+	private int lineCount;
+	//Index into lines of the last row looked up. Lookups mostly move forward,
+	//so this usually avoids a binary search
+	private int lastLine;
+
+	public Scanner(byte[] source) {
+		this(source, source.length);
+	}
+
+	//Scans only the first length bytes of source
+	public Scanner(byte[] source, int length) {
+		this(source, 0, length);
+	}
 	
-	private BufferedReader reader;
-	private int row = 1;
-	private int col = 1;
-	
+	//Scans the bytes of source between start and end, where start is the
+	//beginning of a line. That line is row 1
+	public Scanner(byte[] source, int start, int end) {
+		this.source = source;
+		this.first = start;
+		this.pos = start;
+		this.length = end;
+	}
+
+	//Reads the whole file in one bulk read
+	public Scanner(Path path) throws IOException {
+		this(Files.readAllBytes(path));
+	}
+
+	//Compatibility constructor: drains the reader into a byte array.
+	//Characters outside of ASCII are truncated to their low byte
 	public Scanner(BufferedReader reader) {
-		this.reader = reader;
+		byte[] buffer = new byte[8192];
+		int size = 0;
+		char[] chunk = new char[8192];
+		try {
+			int read;
+			while ((read = reader.read(chunk)) != -1) {
+				if (size + read > buffer.length) {
+					buffer = Arrays.copyOf(buffer, Math.max(size + read, buffer.length * 2));
+				}
+				for (int i = 0; i < read; i++) {
+					buffer[size++] = (byte)chunk[i];
+				}
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		this.source = buffer;
+		this.length = size;
 	}
-	
+
 	@Override
 	public int getRow() {
-		return row;
+		return getRow(pos);
 	}
 	@Override
 	public int getCol() {
-		return col;
+		return getCol(pos);
+	}
+
+	//Gets the offset of the next character to consume
+	public int getOffset() {
+		return pos;
+	}
+	
+	//Moves the cursor to the given offset. Lets a caller that reads the
+	//source array directly consume many characters at once
+	public void setOffset(int pos) {
+		this.pos = pos;
+	}
+	
+	//Gets the array backing the source. Only offsets from the start of the
+	//scanner up to getLength() are part of the source
+	public byte[] getSource() {
+		return source;
+	}
+	
+	public int getLength() {
+		return length;
 	}
 	
-	//Consumes the next character, but see class comment for 
+	//Copies the source text between the two offsets into a string
+	public String getText(int start, int end) {
+		return new String(source, start, end - start, StandardCharsets.ISO_8859_1);
+	}
+	
+	//Gets the row of the character at the given offset
+	public int getRow(int offset) {
+		return line(offset) + 1;
+	}
+
+	//Gets the column of the character at the given offset
+	public int getCol(int offset) {
+		return offset - lines[line(offset)] + 1;
+	}
+
+	//Consumes the next character, but see class comment for
 	//special behavior for Microsoft line separator \r\n
 	public char next() {
-		try {
-			col++;
-			char c = (char)reader.read();
-			if (c == '\r' && peek() == '\n') {
-				//Microsoft line terminator:
-				reader.read(); //Consume the \n
-				c = '\n';
-			}
-			if (c == '\n' || c == '\r') {
-				row++;
-				col = 1;
-			}
-			return c;
-		} catch (IOException e) {
-			e.printStackTrace();
+		int i = pos++;
+		if (i >= length) {
 			return EOS;
 		}
+		char c = (char)(source[i] & 0xFF);
+		if (c == '\r' && pos < length && source[pos] == '\n') {
+			//Microsoft line terminator:
+			pos++; //Consume the \n
+			c = '\n';
+		}
+		return c;
 	}
-	
+
 	//Gets, but does not consume, the next character. See special
 	//behavior for \r\n
 	public char peek() {
-		try {
-			reader.mark(1);
-			//Cache location, because next() could unpredictably change it
-			int oldRow = row;
-			int oldCol = col;
-			char c = next();
-			//Undo all side effects of next()
-			reader.reset();
-			row = oldRow;
-			col = oldCol;
-			return c;
-		} catch (IOException e) {
-			e.printStackTrace();
+		if (pos >= length) {
 			return EOS;
 		}
+		char c = (char)(source[pos] & 0xFF);
+		if (c == '\r' && pos + 1 < length && source[pos + 1] == '\n') {
+			c = '\n';
+		}
+		return c;
+	}
+
+	//Finds the index of the line containing the given offset
+	private int line(int offset) {
+		if (lines == null) {
+			buildLines();
+		}
+		int last = lastLine;
+		if (lines[last] <= offset && (last + 1 == lineCount || offset < lines[last + 1])) {
+			return last;
+		}
+		if (last + 1 < lineCount && lines[last + 1] <= offset
+			&& (last + 2 == lineCount || offset < lines[last + 2])) {
+			return lastLine = last + 1;
+		}
+		int index = Arrays.binarySearch(lines, 0, lineCount, offset);
+		//If not found, then the offset lies in the line before the insertion point
+		if (index < 0) {
+			index = -index - 2;
+		}
+		return lastLine = index;
+	}
+
+	//A new line starts after every \n, \r\n, and lone \r
+	private void buildLines() {
+		int[] result = new int[Math.max(16, (length - first) / 32)];
+		int count = 0;
+		result[count++] = first;
+		for (int i = first; i < length; i++) {
+			byte b = source[i];
+			if (b == '\n' || b == '\r') {
+				if (b == '\r' && i + 1 < length && source[i + 1] == '\n') {
+					i++;
+				}
+				if (count == result.length) {
+					result = Arrays.copyOf(result, count * 2);
+				}
+				result[count++] = i + 1;
+			}
+		}
+		lines = result;
+		lineCount = count;
 	}
 }
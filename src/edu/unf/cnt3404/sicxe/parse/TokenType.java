@@ -0,0 +1,20 @@
+package edu.unf.cnt3404.sicxe.parse;
+
+//The kinds of tokens the Lexer can produce. The payload of the current
+//token is kept in the Lexer's fields, and depends on the type:
+//Number tokens have an int value;
+//Symbol and comment tokens have a range of source text;
+//Simple tokens have the character as their value;
+//Data tokens have the prefix letter as their value and a range of source text;
+//Mnemonic tokens have a Mnemonic;
+//Whitespace and newline tokens have no payload
+public enum TokenType {
+	NUMBER,
+	SYMBOL,
+	COMMENT,
+	DATA, //X'...' or C'...'
+	SIMPLE, //A simple token is one character
+	WHITESPACE,
+	NEWLINE, 
+	MNEMONIC
+}
@@ -0,0 +1,88 @@
+package edu.unf.cnt3404.sicxe.parse;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+//Skips runs of source bytes eight at a time, by loading a long from the
+//byte array and testing all of its bytes at once (SIMD within a register).
+//Used by the Lexer for whitespace runs, comment lines, and C'...' bodies,
+//which are the longest stretches of source that need no per-byte work.
+//Every method returns the offset of the first byte that stops the run,
+//or end if the run reaches end.
+final class WordSkipper {
+	private WordSkipper() {}
+
+	private static final VarHandle WORDS =
+		MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+	private static final long ONES = 0x0101010101010101L;
+	private static final long LOWS = 0x7F7F7F7F7F7F7F7FL;
+
+	private static final long SPACES = ' ' * ONES;
+	private static final long TABS = '\t' * ONES;
+	private static final long LINE_FEEDS = '\n' * ONES;
+	private static final long RETURNS = '\r' * ONES;
+	private static final long QUOTES = '\'' * ONES;
+
+	//Sets the high bit of every byte in the word that is zero, and
+	//clears every other bit. Carries never cross into the next byte,
+	//so every byte is tested exactly
+	private static long zeros(long word) {
+		long t = (word & LOWS) + LOWS;
+		return ~(t | word | LOWS);
+	}
+
+	//The number of bytes before the first flagged byte of the mask
+	private static int first(long mask) {
+		return Long.numberOfTrailingZeros(mask) >>> 3;
+	}
+
+	//Skips spaces and tabs
+	static int skipWhitespace(byte[] source, int pos, int end) {
+		while (pos + 8 <= end) {
+			long word = (long)WORDS.get(source, pos);
+			long stops = ~(zeros(word ^ SPACES) | zeros(word ^ TABS)) & ~LOWS;
+			if (stops != 0) {
+				return pos + first(stops);
+			}
+			pos += 8;
+		}
+		while (pos < end && (source[pos] == ' ' || source[pos] == '\t')) {
+			pos++;
+		}
+		return pos;
+	}
+
+	//Skips to the next \n or \r
+	static int skipToLineEnd(byte[] source, int pos, int end) {
+		while (pos + 8 <= end) {
+			long word = (long)WORDS.get(source, pos);
+			long stops = zeros(word ^ LINE_FEEDS) | zeros(word ^ RETURNS);
+			if (stops != 0) {
+				return pos + first(stops);
+			}
+			pos += 8;
+		}
+		while (pos < end && source[pos] != '\n' && source[pos] != '\r') {
+			pos++;
+		}
+		return pos;
+	}
+
+	//Skips to the next single quote
+	static int skipToQuote(byte[] source, int pos, int end) {
+		while (pos + 8 <= end) {
+			long word = (long)WORDS.get(source, pos);
+			long stops = zeros(word ^ QUOTES);
+			if (stops != 0) {
+				return pos + first(stops);
+			}
+			pos += 8;
+		}
+		while (pos < end && source[pos] != '\'') {
+			pos++;
+		}
+		return pos;
+	}
+}
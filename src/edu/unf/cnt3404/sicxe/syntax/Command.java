@@ -9,14 +9,35 @@ import edu.unf.cnt3404.sicxe.parse.Locatable;
 //must be incremented. A command might have a corresponding label definition
 //or comment.
 public interface Command extends Locatable {
+	//Kinds of commands. Each concrete class has one kind, which it sets when
+	//it is created, so code that handles every class switches on the kind
+	int KIND_COMMENT = 0;
+	int KIND_FORMAT1 = 1;
+	int KIND_FORMAT2 = 2;
+	int KIND_FORMAT34 = 3;
+	int KIND_START = 4;
+	int KIND_END = 5;
+	int KIND_RESB = 6;
+	int KIND_RESW = 7;
+	int KIND_BYTE = 8;
+	int KIND_WORD = 9;
+	int KIND_BASE = 10;
+	int KIND_NOBASE = 11;
+	int KIND_EXTDEF = 12;
+	int KIND_EXTREF = 13;
+	int KIND_ORG = 14;
+	
+	//Gets the kind of this command, one of the KIND constants
+	int getKind();
+	
 	//Returns the number of bytes that this command would take up 
 	//in the object program. 
 	//Alternatively, the amount by which to increment location counter
 	int getSize();
 	
-	void setLabel(String label);
-	//Gets the label for this command, or null if there is no label
-	String getLabel();
+	void setLabel(int label);
+	//Gets the symbol id of the label for this command, or -1 if there is no label
+	int getLabel();
 	
 	void setComment(String comment);
 	//Gets the comment for this command, or null if there is no comment
@@ -41,6 +62,6 @@ public interface Command extends Locatable {
 		return " " + mnemonic.getName();
 	}
 	//Returns a string containing arguments (to the right of name)
-	//Or null if there are no arguments
-	String getArgument();
+	//Or null if there are no arguments. Symbol names come from the table
+	String getArgument(SymbolTable symbols);
 }
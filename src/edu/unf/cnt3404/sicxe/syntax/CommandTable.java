@@ -0,0 +1,546 @@
+package edu.unf.cnt3404.sicxe.syntax;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import edu.unf.cnt3404.sicxe.global.Format;
+import edu.unf.cnt3404.sicxe.global.Global;
+import edu.unf.cnt3404.sicxe.global.Mnemonic;
+import edu.unf.cnt3404.sicxe.syntax.command.ExpressionCommand;
+import edu.unf.cnt3404.sicxe.syntax.command.directive.ByteDirective;
+import edu.unf.cnt3404.sicxe.syntax.command.directive.StartDirective;
+import edu.unf.cnt3404.sicxe.syntax.command.instruction.AddressMode;
+import edu.unf.cnt3404.sicxe.syntax.command.instruction.Format2Instruction;
+import edu.unf.cnt3404.sicxe.syntax.command.instruction.Format34Instruction;
+import edu.unf.cnt3404.sicxe.syntax.expression.ExpressionCompiler;
+
+//The intermediate representation of a program between pass one and pass two.
+//Each command is one row, spread over parallel int arrays (columns), so a
+//row costs a fixed number of bytes, plus its listing text and expression code
+//in shared pools. Pass one adds a row per parsed command and drops the command,
+//and pass two iterates the rows by index.
+public class CommandTable {
+
+	//Flags column. The lowest two bits are the ni bits of the target mode
+	public static final int NI = 0b11;
+	public static final int INDEXED = 1 << 2;
+	public static final int EXTENDED = 1 << 3;
+	//Set when pass one encoded the row's object code
+	private static final int ENCODED = 1 << 4;
+	//Ordinal of the AddressMode plus one, set when the row is assembled
+	private static final int ADDRESS_SHIFT = 5;
+	private static final AddressMode[] ADDRESS_MODES = AddressMode.values();
+
+	//Number of int columns
+	private static final int COLUMNS = 13;
+
+	private int size;
+	private int[] lines = new int[64];
+	//Ordinal of the mnemonic, or -1 for comments
+	private int[] mnemonics = new int[64];
+	private int[] flags = new int[64];
+	private int[] sizes = new int[64];
+	//Location counter at the command, as pass two sees it
+	private int[] locations = new int[64];
+	//Symbol id of the label, or -1
+	private int[] labels = new int[64];
+	//Index into the expression pool, or -1
+	private int[] expressions = new int[64];
+	//Operands that are not expressions, depending on the mnemonic:
+	//FORMAT2N: n. FORMAT2R: r1. FORMAT2RN: r1, n. FORMAT2RR: r1, r2 (symbol ids)
+	//START: the start address. ORG: the new location counter.
+	//BYTE: offset of the data in the byte pool
+	private int[] operands = new int[64];
+	private int[] secondOperands = new int[64];
+	//Offset of the argument text in the byte pool, followed by the comment
+	private int[] texts = new int[64];
+	//Lengths of the argument and comment, or -1 if there is none
+	private int[] argumentLengths = new int[64];
+	private int[] commentLengths = new int[64];
+	//Object code that pass one encoded, in the low getSize() bytes, the
+	//first byte highest. Instructions and WORDs take at most four bytes
+	private int[] codes = new int[64];
+
+	//Listing text and BYTE data
+	private byte[] bytes = new byte[1024];
+	private int byteCount;
+	//Whether rows keep their argument and comment text for the listing
+	private boolean listing = true;
+
+	//Expression pool: expression e's code lies between codeStarts[e] and codeStarts[e + 1]
+	private int[] code = new int[256];
+	private int codeSize;
+	private int[] codeStarts = new int[65];
+	private int expressionCount;
+
+	//Adds a row for the command at the location, and returns the row.
+	//The argument is rendered with the names in symbols
+	public int add(Command c, int location, SymbolTable symbols) {
+		if (size == lines.length) {
+			grow(Math.max(16, size * 2));
+		}
+		int i = size++;
+		Mnemonic mnemonic = c.getMnemonic();
+		lines[i] = c.getLine();
+		mnemonics[i] = mnemonic == null ? -1 : mnemonic.getOrdinal();
+		sizes[i] = c.getSize();
+		locations[i] = location;
+		labels[i] = c.getLabel();
+		flags[i] = 0;
+		codes[i] = 0;
+		operands[i] = 0;
+		secondOperands[i] = 0;
+		expressions[i] = -1;
+
+		switch(c.getKind()) {
+		case Command.KIND_FORMAT34:
+			Format34Instruction f34 = (Format34Instruction) c;
+			flags[i] = f34.getTarget().getNiMask() | (f34.isIndexed() ? INDEXED : 0)
+				| (f34.isExtended() ? EXTENDED : 0);
+			addExpression(i, f34.getExpression());
+			break;
+		case Command.KIND_FORMAT2:
+			Format2Instruction f2 = (Format2Instruction) c;
+			switch(mnemonic.getFormat()) {
+			case FORMAT2N: operands[i] = f2.getNumber(); break;
+			case FORMAT2R: operands[i] = f2.getRegisterOne(); break;
+			case FORMAT2RN: operands[i] = f2.getRegisterOne(); secondOperands[i] = f2.getNumber(); break;
+			case FORMAT2RR: operands[i] = f2.getRegisterOne(); secondOperands[i] = f2.getRegisterTwo(); break;
+			default: throw new IllegalStateException(mnemonic.getFormat().toString());
+			}
+			break;
+		case Command.KIND_START:
+			operands[i] = ((StartDirective) c).getStart();
+			break;
+		case Command.KIND_END:
+		case Command.KIND_WORD:
+		case Command.KIND_BASE:
+		case Command.KIND_ORG:
+			addExpression(i, ((ExpressionCommand) c).getExpression());
+			break;
+		default:
+			break;
+		}
+
+		texts[i] = byteCount;
+		//Rendering the argument is most of the cost of adding a row
+		argumentLengths[i] = listing ? addText(c.getArgument(symbols)) : -1;
+		commentLengths[i] = listing ? addText(c.getComment()) : -1;
+		if (c.getKind() == Command.KIND_BYTE) {
+			operands[i] = byteCount;
+			addBytes(((ByteDirective) c).getData().toBytes());
+		}
+		return i;
+	}
+
+	//Makes the rows added from now on keep their listing text, or not.
+	//Without it, every row has no argument and no comment
+	public void setListing(boolean listing) {
+		this.listing = listing;
+	}
+	public boolean isListing() {
+		return listing;
+	}
+
+	//Appends the rows of another table, whose symbol ids are replaced by
+	//ids[id] and whose lines are moved down by lineOffset
+	public void append(CommandTable other, int[] ids, int lineOffset) {
+		if (size + other.size > lines.length) {
+			grow(Math.max(size + other.size, size * 2));
+		}
+		int bytesOffset = byteCount;
+		int expressionOffset = expressionCount;
+		int codeOffset = codeSize;
+		for (int j = 0; j < other.size; j++) {
+			int i = size++;
+			int ordinal = other.mnemonics[j];
+			lines[i] = other.lines[j] + lineOffset;
+			mnemonics[i] = ordinal;
+			flags[i] = other.flags[j];
+			codes[i] = other.codes[j];
+			sizes[i] = other.sizes[j];
+			locations[i] = other.locations[j];
+			labels[i] = other.labels[j] < 0 ? -1 : ids[other.labels[j]];
+			expressions[i] = other.expressions[j] < 0 ? -1 : other.expressions[j] + expressionOffset;
+			operands[i] = other.operands[j];
+			secondOperands[i] = other.secondOperands[j];
+			texts[i] = other.texts[j] + bytesOffset;
+			argumentLengths[i] = other.argumentLengths[j];
+			commentLengths[i] = other.commentLengths[j];
+			//Operands that are symbol ids or byte pool offsets
+			Format format = ordinal < 0 ? null : Global.getMnemonic(ordinal).getFormat();
+			if (format == Format.FORMAT2RR) {
+				secondOperands[i] = remap(secondOperands[i], ids);
+			}
+			if (format == Format.FORMAT2R || format == Format.FORMAT2RN || format == Format.FORMAT2RR) {
+				operands[i] = remap(operands[i], ids);
+			} else if (ordinal == Global.BYTE) {
+				operands[i] += bytesOffset;
+			}
+		}
+
+		ensureBytes(other.byteCount);
+		System.arraycopy(other.bytes, 0, bytes, byteCount, other.byteCount);
+		byteCount += other.byteCount;
+
+		if (codeSize + other.codeSize > code.length) {
+			code = Arrays.copyOf(code, Math.max(codeSize + other.codeSize, code.length * 2));
+		}
+		for (int pc = 0; pc < other.codeSize; pc++) {
+			int instruction = other.code[pc];
+			switch(instruction & 0xF) {
+			case ExpressionCompiler.NUMBER:
+				code[codeSize++] = instruction;
+				instruction = other.code[++pc];
+				break;
+			case ExpressionCompiler.SYMBOL:
+				int operand = instruction >> 4;
+				instruction = ((ids[operand >> 1] << 1 | (operand & 1)) << 4) | ExpressionCompiler.SYMBOL;
+				break;
+			default: break;
+			}
+			code[codeSize++] = instruction;
+		}
+		if (expressionCount + other.expressionCount + 1 > codeStarts.length) {
+			codeStarts = Arrays.copyOf(codeStarts, 
+				Math.max(expressionCount + other.expressionCount + 1, codeStarts.length * 2));
+		}
+		for (int e = 1; e <= other.expressionCount; e++) {
+			codeStarts[expressionOffset + e] = other.codeStarts[e] + codeOffset;
+		}
+		expressionCount += other.expressionCount;
+	}
+
+	//Adds a copy of row j of another table with the same symbol ids, with its
+	//text, BYTE data, and expression, and returns the new row
+	public int add(CommandTable other, int j) {
+		if (size == lines.length) {
+			grow(Math.max(16, size * 2));
+		}
+		int i = size++;
+		lines[i] = other.lines[j];
+		mnemonics[i] = other.mnemonics[j];
+		flags[i] = other.flags[j];
+		codes[i] = other.codes[j];
+		sizes[i] = other.sizes[j];
+		locations[i] = other.locations[j];
+		labels[i] = other.labels[j];
+		operands[i] = other.operands[j];
+		secondOperands[i] = other.secondOperands[j];
+		argumentLengths[i] = other.argumentLengths[j];
+		commentLengths[i] = other.commentLengths[j];
+		int textLength = Math.max(other.argumentLengths[j], 0) + Math.max(other.commentLengths[j], 0);
+		texts[i] = copyBytes(other.bytes, other.texts[j], textLength);
+		if (other.mnemonics[j] == Global.BYTE) {
+			operands[i] = copyBytes(other.bytes, other.operands[j], other.sizes[j]);
+		}
+		int e = other.expressions[j];
+		expressions[i] = e < 0 ? -1 : addExpression(Arrays.copyOfRange(other.code,
+			other.codeStarts[e], other.codeStarts[e + 1]));
+		return i;
+	}
+
+	private static int remap(int id, int[] ids) {
+		return id < 0 ? id : ids[id];
+	}
+
+	//Drops every row from the given row on. Their text and code stay in the
+	//pools until the table is cleared
+	public void truncate(int rows) {
+		size = rows;
+	}
+
+	//Adds the offset to the location of every row so far
+	public void relocate(int offset) {
+		for (int i = 0; i < size; i++) {
+			locations[i] += offset;
+		}
+	}
+
+	//Removes every row, keeping the capacity for the next rows
+	public void clear() {
+		size = 0;
+		byteCount = 0;
+		codeSize = 0;
+		expressionCount = 0;
+	}
+
+	//Writes the rows in a compact binary form that read() restores
+	public void write(DataOutputStream out) throws IOException {
+		out.writeInt(size);
+		for (int[] column : columns()) {
+			for (int i = 0; i < size; i++) {
+				out.writeInt(column[i]);
+			}
+		}
+		out.writeInt(byteCount);
+		out.write(bytes, 0, byteCount);
+		out.writeInt(expressionCount);
+		for (int e = 1; e <= expressionCount; e++) {
+			out.writeInt(codeStarts[e]);
+		}
+		for (int i = 0; i < codeSize; i++) {
+			out.writeInt(code[i]);
+		}
+	}
+
+	//Replaces the rows with the ones that write() wrote
+	public void read(DataInputStream in) throws IOException {
+		clear();
+		int rows = in.readInt();
+		if (rows > lines.length) {
+			grow(rows);
+		}
+		for (int[] column : columns()) {
+			for (int i = 0; i < rows; i++) {
+				column[i] = in.readInt();
+			}
+		}
+		size = rows;
+		byteCount = in.readInt();
+		if (byteCount > bytes.length) {
+			bytes = new byte[byteCount];
+		}
+		in.readFully(bytes, 0, byteCount);
+		expressionCount = in.readInt();
+		if (expressionCount + 1 > codeStarts.length) {
+			codeStarts = new int[expressionCount + 1];
+		}
+		for (int e = 1; e <= expressionCount; e++) {
+			codeStarts[e] = in.readInt();
+		}
+		codeSize = codeStarts[expressionCount];
+		if (codeSize > code.length) {
+			code = new int[codeSize];
+		}
+		for (int i = 0; i < codeSize; i++) {
+			code[i] = in.readInt();
+		}
+	}
+
+	//Releases the unused capacity of the columns and pools
+	public void trim() {
+		grow(size);
+		bytes = Arrays.copyOf(bytes, byteCount);
+		code = Arrays.copyOf(code, codeSize);
+		codeStarts = Arrays.copyOf(codeStarts, expressionCount + 1);
+	}
+
+	//The number of bytes held by the columns and pools
+	public long getFootprint() {
+		return 4L * COLUMNS * lines.length + bytes.length + 4L * code.length + 4L * codeStarts.length;
+	}
+
+	//The number of rows
+	public int size() {
+		return size;
+	}
+
+	public int getLine(int i) {
+		return lines[i];
+	}
+	//Gets the mnemonic of the row, or null if the row is a comment
+	public Mnemonic getMnemonic(int i) {
+		return mnemonics[i] < 0 ? null : Global.getMnemonic(mnemonics[i]);
+	}
+	//Gets the ordinal of the mnemonic of the row, or -1 if the row is a comment
+	public int getOrdinal(int i) {
+		return mnemonics[i];
+	}
+	public int getFlags(int i) {
+		return flags[i];
+	}
+	public int getSize(int i) {
+		return sizes[i];
+	}
+	public int getLocation(int i) {
+		return locations[i];
+	}
+	public void setLocation(int i, int location) {
+		locations[i] = location;
+	}
+	public int getLabel(int i) {
+		return labels[i];
+	}
+	public int getOperand(int i) {
+		return operands[i];
+	}
+	public void setOperand(int i, int operand) {
+		operands[i] = operand;
+	}
+	public int getSecondOperand(int i) {
+		return secondOperands[i];
+	}
+
+	//Gets the address mode that pass two chose for a format 3/4 row, or null
+	public AddressMode getAddressMode(int i) {
+		int mode = flags[i] >> ADDRESS_SHIFT;
+		return mode == 0 ? null : ADDRESS_MODES[mode - 1];
+	}
+	public void setAddressMode(int i, AddressMode mode) {
+		flags[i] = (flags[i] & ~(-1 << ADDRESS_SHIFT)) | ((mode.ordinal() + 1) << ADDRESS_SHIFT);
+	}
+
+	//Keeps the object code of row i, which is in code starting at pos,
+	//as encoded by pass one
+	public void setEarlyCode(int i, byte[] code, int pos) {
+		int packed = 0;
+		for (int j = pos; j < pos + sizes[i]; j++) {
+			packed = packed << 8 | (code[j] & 0xFF);
+		}
+		codes[i] = packed;
+		flags[i] |= ENCODED;
+	}
+	//Whether pass one encoded the row's object code
+	public boolean isEncoded(int i) {
+		return (flags[i] & ENCODED) != 0;
+	}
+	//Writes the object code that pass one encoded to code, starting at pos
+	public void getEarlyCode(int i, byte[] code, int pos) {
+		int packed = codes[i];
+		for (int j = pos + sizes[i] - 1; j >= pos; j--) {
+			code[j] = (byte)packed;
+			packed >>= 8;
+		}
+	}
+
+	//Whether the row writes object code: instructions, BYTE and WORD
+	public boolean isWriteable(int i) {
+		int ordinal = mnemonics[i];
+		return ordinal >= 0 && (Global.getMnemonic(ordinal).getFormat() != null
+			|| ordinal == Global.BYTE || ordinal == Global.WORD);
+	}
+	//Whether the row writes object code that depends on an expression, and so
+	//might need modification records: format 3/4 instructions and WORD
+	public boolean isModifiable(int i) {
+		int ordinal = mnemonics[i];
+		if (ordinal < 0) {
+			return false;
+		}
+		Format format = Global.getMnemonic(ordinal).getFormat();
+		return format == Format.FORMAT34 || format == Format.FORMAT34M || ordinal == Global.WORD;
+	}
+
+	//Expression pool methods
+	//Gets the expression of the row, or -1 if it has none
+	public int getExpression(int i) {
+		return expressions[i];
+	}
+	public int[] getCode() {
+		return code;
+	}
+	public int getCodeStart(int expression) {
+		return codeStarts[expression];
+	}
+	public int getCodeEnd(int expression) {
+		return codeStarts[expression + 1];
+	}
+
+	//Byte pool methods
+	public byte[] getBytes() {
+		return bytes;
+	}
+	//Gets the argument as written in the listing, or null
+	public String getArgument(int i) {
+		return getText(texts[i], argumentLengths[i]);
+	}
+	//Gets the length of the argument, or -1 if there is none
+	public int getArgumentLength(int i) {
+		return argumentLengths[i];
+	}
+	//Gets the comment, or null
+	public String getComment(int i) {
+		int length = argumentLengths[i];
+		return getText(texts[i] + Math.max(length, 0), commentLengths[i]);
+	}
+	//Gets the offset of the argument in the byte pool, which the comment follows
+	public int getTextStart(int i) {
+		return texts[i];
+	}
+	//Gets the length of the comment, or -1 if there is none
+	public int getCommentLength(int i) {
+		return commentLengths[i];
+	}
+
+	private String getText(int start, int length) {
+		return length < 0 ? null : new String(bytes, start, length, StandardCharsets.ISO_8859_1);
+	}
+
+	//Appends the text to the byte pool, returning its length or -1 if it is null
+	private int addText(String text) {
+		if (text == null) {
+			return -1;
+		}
+		int length = text.length();
+		ensureBytes(length);
+		for (int i = 0; i < length; i++) {
+			bytes[byteCount++] = (byte)text.charAt(i);
+		}
+		return length;
+	}
+
+	private void addBytes(byte[] data) {
+		ensureBytes(data.length);
+		System.arraycopy(data, 0, bytes, byteCount, data.length);
+		byteCount += data.length;
+	}
+
+	//Appends length bytes of the array to the byte pool, returning their offset
+	private int copyBytes(byte[] data, int start, int length) {
+		int offset = byteCount;
+		ensureBytes(length);
+		System.arraycopy(data, start, bytes, byteCount, length);
+		byteCount += length;
+		return offset;
+	}
+
+	private void ensureBytes(int length) {
+		if (byteCount + length > bytes.length) {
+			bytes = Arrays.copyOf(bytes, Math.max(byteCount + length, bytes.length * 2));
+		}
+	}
+
+	//Adds the expression of row i, if there is one
+	private void addExpression(int i, Expression expr) {
+		if (expr != null) {
+			expressions[i] = addExpression(expr.getCode());
+		}
+	}
+
+	private int addExpression(int[] expr) {
+		if (codeSize + expr.length > code.length) {
+			code = Arrays.copyOf(code, Math.max(codeSize + expr.length, code.length * 2));
+		}
+		System.arraycopy(expr, 0, code, codeSize, expr.length);
+		codeSize += expr.length;
+		if (expressionCount + 1 == codeStarts.length) {
+			codeStarts = Arrays.copyOf(codeStarts, codeStarts.length * 2);
+		}
+		codeStarts[++expressionCount] = codeSize;
+		return expressionCount - 1;
+	}
+
+	private int[][] columns() {
+		return new int[][] {lines, mnemonics, flags, sizes, locations, labels, expressions,
+			operands, secondOperands, texts, argumentLengths, commentLengths, codes};
+	}
+
+	private void grow(int capacity) {
+		lines = Arrays.copyOf(lines, capacity);
+		mnemonics = Arrays.copyOf(mnemonics, capacity);
+		flags = Arrays.copyOf(flags, capacity);
+		sizes = Arrays.copyOf(sizes, capacity);
+		locations = Arrays.copyOf(locations, capacity);
+		labels = Arrays.copyOf(labels, capacity);
+		expressions = Arrays.copyOf(expressions, capacity);
+		operands = Arrays.copyOf(operands, capacity);
+		secondOperands = Arrays.copyOf(secondOperands, capacity);
+		texts = Arrays.copyOf(texts, capacity);
+		argumentLengths = Arrays.copyOf(argumentLengths, capacity);
+		commentLengths = Arrays.copyOf(commentLengths, capacity);
+		codes = Arrays.copyOf(codes, capacity);
+	}
+}
@@ -0,0 +1,169 @@
+package edu.unf.cnt3404.sicxe.syntax;
+
+import java.util.Arrays;
+
+import edu.unf.cnt3404.sicxe.parse.AssembleError;
+import edu.unf.cnt3404.sicxe.parse.Locatable;
+import edu.unf.cnt3404.sicxe.syntax.expression.ExpressionCompiler;
+
+//Runs the postfix code of an expression (see ExpressionCompiler), computing
+//the value, the net sign of the relative terms, and the external terms together.
+//One evaluator is reused for every expression; the results describe the
+//most recent evaluation. The symbol table is only read, so evaluators on
+//different threads can share it once pass one is over.
+public class Evaluator {
+
+	private SymbolTable symbols;
+
+	//Every instruction pushes at most one value, so the stack never needs
+	//to be deeper than the code is long
+	private int[] stack = new int[16];
+
+	private int value;
+	//The number of positive relative symbols minus the number of negative ones
+	private int netSign;
+	//The external symbol references and associated signs. Each entry is the
+	//symbol's id times two, plus one if the term is negative.
+	private int[] externals = new int[4];
+	private int externalCount;
+
+	public Evaluator(SymbolTable symbols) {
+		this.symbols = symbols;
+	}
+
+	//Evaluates a parsed expression of the command, where * is the location
+	public void evaluate(Expression expr, Locatable l, int location) throws AssembleError {
+		int[] code = expr.getCode();
+		evaluate(code, 0, code.length, l.getRow(), location);
+	}
+
+	//Evaluates the code between start and end, where * is the location.
+	//Errors are reported on the row
+	public void evaluate(int[] code, int start, int end, int row, int location) 
+			throws AssembleError {
+		if (stack.length < end - start) {
+			stack = new int[end - start];
+		}
+		int top = 0;
+		int sign = 0;
+		int count = 0;
+		for (int pc = start; pc < end; pc++) {
+			int instruction = code[pc];
+			int operand = instruction >> 4;
+			switch(instruction & 0xF) {
+			case ExpressionCompiler.NUMBER:
+				stack[top++] = code[++pc];
+				break;
+			case ExpressionCompiler.SYMBOL:
+				int id = operand >> 1;
+				if (!symbols.isDefined(id)) {
+					throw new AssembleError(row, 1, "Unrecognized symbol " + symbols.getName(id));
+				}
+				stack[top++] = symbols.getValue(id);
+				if (symbols.isExternal(id)) {
+					if (count == externals.length) {
+						externals = Arrays.copyOf(externals, count * 2);
+					}
+					externals[count++] = operand;
+				} else if (!symbols.isAbsolute(id)) {
+					sign += (operand & 1) == 0 ? 1 : -1;
+				}
+				break;
+			case ExpressionCompiler.STAR:
+				stack[top++] = location;
+				sign += operand == 0 ? 1 : -1;
+				break;
+			case ExpressionCompiler.ADD:
+				top--;
+				stack[top - 1] += stack[top];
+				break;
+			case ExpressionCompiler.SUB:
+				top--;
+				stack[top - 1] -= stack[top];
+				break;
+			case ExpressionCompiler.MUL:
+				top--;
+				stack[top - 1] *= stack[top];
+				break;
+			case ExpressionCompiler.DIV:
+				top--;
+				stack[top - 1] /= stack[top];
+				break;
+			default: throw new IllegalStateException(Integer.toString(instruction));
+			}
+		}
+		value = stack[0];
+		netSign = sign;
+		externalCount = count;
+	}
+
+	//Returns whether the code between start and end can be evaluated now
+	//without an error: every symbol it names is defined, and it does not
+	//divide, which could be by zero
+	public boolean isResolvable(int[] code, int start, int end) {
+		for (int pc = start; pc < end; pc++) {
+			int instruction = code[pc];
+			switch(instruction & 0xF) {
+			case ExpressionCompiler.NUMBER:
+				pc++;
+				break;
+			case ExpressionCompiler.SYMBOL:
+				if (!symbols.isDefined(instruction >> 5)) {
+					return false;
+				}
+				break;
+			case ExpressionCompiler.DIV:
+				return false;
+			default: break;
+			}
+		}
+		return true;
+	}
+	
+	//Gets the id of the first symbol that the code between start and end names
+	//and that is not defined yet, or -1 if every symbol is defined
+	public int getUndefinedSymbol(int[] code, int start, int end) {
+		for (int pc = start; pc < end; pc++) {
+			int instruction = code[pc];
+			switch(instruction & 0xF) {
+			case ExpressionCompiler.NUMBER:
+				pc++;
+				break;
+			case ExpressionCompiler.SYMBOL:
+				if (!symbols.isDefined(instruction >> 5)) {
+					return instruction >> 5;
+				}
+				break;
+			default: break;
+			}
+		}
+		return -1;
+	}
+	
+	public int getValue() {
+		return value;
+	}
+
+	public boolean isAbsolute() {
+		return netSign == 0;
+	}
+
+	public int getNetSign() {
+		return netSign;
+	}
+
+	//Gets the number of external symbol terms
+	public int getExternalCount() {
+		return externalCount;
+	}
+
+	//Gets the symbol id of the i-th external term
+	public int getExternalSymbol(int i) {
+		return externals[i] >> 1;
+	}
+
+	//Gets the sign of the i-th external term, returning true if positive
+	public boolean isExternalPositive(int i) {
+		return (externals[i] & 1) == 0;
+	}
+}
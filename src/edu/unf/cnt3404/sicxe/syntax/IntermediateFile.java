@@ -0,0 +1,87 @@
+package edu.unf.cnt3404.sicxe.syntax;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+//The intermediate file of a classic two pass assembler. Pass one spills
+//its command table here one block of rows at a time, and pass two streams
+//the blocks back into a table of the same size, so the rows of the whole
+//program are never in memory at once.
+public class IntermediateFile {
+
+	//Rows per block
+	public static final int BLOCK = 4096;
+
+	private Path path;
+	private DataOutputStream out;
+	private DataInputStream in;
+	private int blocks;
+
+	//The offset that CommandTable.relocate added to the rows in memory, 
+	//and that the first relocatedBlocks blocks did not get yet
+	private int relocation;
+	private int relocatedBlocks;
+	private int readBlocks;
+
+	public IntermediateFile(Path path) {
+		this.path = path;
+		try {
+			out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	//Appends the rows of the table as one block, and clears the table
+	public void write(CommandTable table) {
+		try {
+			table.write(out);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		table.clear();
+		blocks++;
+	}
+
+	//Adds the offset to the location of every row written so far.
+	//See CommandTable.relocate
+	public void relocate(int offset) {
+		relocation += offset;
+		relocatedBlocks = blocks;
+	}
+
+	//Finishes writing, so that read() starts at the first block
+	public void rewind() {
+		try {
+			out.close();
+			in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	//Reads the next block into the table. Returns false, and closes and
+	//deletes the file, after the last block
+	public boolean read(CommandTable table) {
+		try {
+			if (readBlocks == blocks) {
+				in.close();
+				Files.deleteIfExists(path);
+				return false;
+			}
+			table.read(in);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		if (readBlocks++ < relocatedBlocks) {
+			table.relocate(relocation);
+		}
+		return true;
+	}
+}
@@ -1,9 +1,6 @@
 package edu.unf.cnt3404.sicxe.syntax;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.Arrays;
 
 //Contains Program State, like location counter, references, definitions,
 //Symtab, etc.
@@ -19,10 +16,13 @@ public class Program {
 	private int base;
 	private int locctr;
 	
-	private List<String> definitions = new ArrayList<>();
-	private List<String> references = new ArrayList<>();
+	//Ids of external definitions and references
+	private int[] definitions = new int[0];
+	private int definitionCount;
+	private int[] references = new int[0];
+	private int referenceCount;
 	
-	private Map<String, Symbol> symtab = new HashMap<>();
+	private SymbolTable symbols = new SymbolTable();
 	
 	//Start directive methods
 	public void setName(String name) {
@@ -87,34 +87,44 @@ public class Program {
 		return base >= 0;
 	}
 	//External definition methods
-	public void addExternalDefintion(String def) {
-		definitions.add(def);
-	}
-	public List<Symbol> getExternalDefinitions() {
-		List<Symbol> result = new ArrayList<>();
-		for (String def : definitions) {
-			Symbol symbol = getSymbol(def);
-			if (symbol == null) {
-				throw new RuntimeException("External Definition symbol " + def
+	public void addExternalDefintion(int def) {
+		definitions = add(definitions, definitionCount++, def);
+	}
+	//Gets the ids of the external definitions, whether or not they are defined yet
+	public int[] getDeclaredDefinitions() {
+		return Arrays.copyOf(definitions, definitionCount);
+	}
+	//Gets the ids of the external definitions
+	public int[] getExternalDefinitions() {
+		int[] result = Arrays.copyOf(definitions, definitionCount);
+		for (int def : result) {
+			if (!symbols.isDefined(def)) {
+				throw new RuntimeException("External Definition symbol " + symbols.getName(def)
 						+ " was never defined");
 			}
-			result.add(symbol);
 		}
 		return result;
 	}
 	//External reference methods
-	public void addExternalReference(String ref) {
-		symtab.put(ref, new Symbol(ref));
-		references.add(ref);
+	public void addExternalReference(int ref) {
+		symbols.defineExternal(ref);
+		references = add(references, referenceCount++, ref);
 	}
-	public List<String> getExternalReferences() {
-		return references;
+	//Gets the ids of the external references
+	public int[] getExternalReferences() {
+		return Arrays.copyOf(references, referenceCount);
 	}
 	//Symtab methods
-	public void put(String symbol, int value, boolean absolute) {
-		symtab.put(symbol, new Symbol(symbol, value, absolute));
+	public SymbolTable getSymbols() {
+		return symbols;
 	}
-	public Symbol getSymbol(String symbol) {
-		return symtab.get(symbol);
+	
+	//Appends the id to the array, growing it if required
+	private static int[] add(int[] ids, int count, int id) {
+		if (count == ids.length) {
+			ids = Arrays.copyOf(ids, Math.max(4, count * 2));
+		}
+		ids[count] = id;
+		return ids;
 	}
 }
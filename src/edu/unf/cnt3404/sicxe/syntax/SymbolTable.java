@@ -0,0 +1,196 @@
+package edu.unf.cnt3404.sicxe.syntax;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+//Interns symbol names into dense int ids, and holds the symtab entry of
+//every id in parallel primitive arrays. Names are upper case ASCII, stored
+//back to back in one byte pool.
+//Lookup is an open addressing hash table of ids with linear probing.
+public class SymbolTable {
+
+	//Flags of a symtab entry
+	private static final byte DEFINED = 1;
+	private static final byte ABSOLUTE = 2;
+	private static final byte EXTERNAL = 4;
+
+	//Hash table: id + 1 of the name in each slot, or 0 if the slot is empty.
+	//Length is a power of two, and is kept at most half full
+	private int[] slots = new int[64];
+
+	//Indexed by id
+	private int size;
+	private int[] hashes = new int[16];
+	private int[] values = new int[16];
+	private byte[] flags = new byte[16];
+	//Offset of each name in the pool. The name of id ends where id + 1 starts
+	private int[] starts = new int[17];
+
+	private byte[] pool = new byte[256];
+	private int poolSize;
+
+	//Interns the name spelled by the source bytes between start and end,
+	//ignoring case, and returns its id
+	public int intern(byte[] source, int start, int end) {
+		int hash = hash(source, start, end);
+		int mask = slots.length - 1;
+		for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+			int id = slots[slot] - 1;
+			if (id < 0) {
+				return add(slot, hash, source, start, end);
+			}
+			if (hashes[id] == hash && matches(id, source, start, end)) {
+				return id;
+			}
+		}
+	}
+
+	//Interns the name and returns its id
+	public int intern(String name) {
+		byte[] bytes = new byte[name.length()];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = (byte)name.charAt(i);
+		}
+		return intern(bytes, 0, bytes.length);
+	}
+
+	//Gets the number of ids
+	public int size() {
+		return size;
+	}
+
+	//Gets the name of the id, or null if id is negative (no symbol)
+	public String getName(int id) {
+		if (id < 0) {
+			return null;
+		}
+		return new String(pool, starts[id], getLength(id), StandardCharsets.ISO_8859_1);
+	}
+
+	//Gets the length of the name of the id
+	public int getLength(int id) {
+		return starts[id + 1] - starts[id];
+	}
+
+	//Returns whether the id's name is the given upper case name
+	public boolean is(int id, String name) {
+		int start = starts[id];
+		if (getLength(id) != name.length()) {
+			return false;
+		}
+		for (int i = 0; i < name.length(); i++) {
+			if (pool[start + i] != name.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	//The pool of names. The name of id lies between getStart(id) and getEnd(id)
+	public byte[] getPool() {
+		return pool;
+	}
+	public int getStart(int id) {
+		return starts[id];
+	}
+	public int getEnd(int id) {
+		return starts[id + 1];
+	}
+
+	//Symtab methods
+	//Defines a local symbol. Returns false if the symbol was already defined,
+	//in which case the new definition replaces the old one
+	public boolean define(int id, int value, boolean absolute) {
+		boolean fresh = (flags[id] & DEFINED) == 0;
+		values[id] = value;
+		flags[id] = (byte)(DEFINED | (absolute ? ABSOLUTE : 0));
+		return fresh;
+	}
+	//Defines an external symbol
+	public void defineExternal(int id) {
+		values[id] = 0;
+		flags[id] = DEFINED | EXTERNAL;
+	}
+	//Returns whether the symbol was defined, locally or externally
+	public boolean isDefined(int id) {
+		return (flags[id] & DEFINED) != 0;
+	}
+	//Returns whether the symbol is external; otherwise, it is local
+	public boolean isExternal(int id) {
+		return (flags[id] & EXTERNAL) != 0;
+	}
+	//Returns whether the symbol is absolute; otherwise, it is relative
+	public boolean isAbsolute(int id) {
+		return (flags[id] & ABSOLUTE) != 0;
+	}
+	//Returns the address or value
+	public int getValue(int id) {
+		return values[id];
+	}
+
+	private boolean matches(int id, byte[] source, int start, int end) {
+		int at = starts[id];
+		if (starts[id + 1] - at != end - start) {
+			return false;
+		}
+		for (int i = start; i < end; i++) {
+			if (pool[at++] != upper(source[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private int add(int slot, int hash, byte[] source, int start, int end) {
+		int id = size++;
+		if (id == hashes.length) {
+			int capacity = id * 2;
+			hashes = Arrays.copyOf(hashes, capacity);
+			values = Arrays.copyOf(values, capacity);
+			flags = Arrays.copyOf(flags, capacity);
+			starts = Arrays.copyOf(starts, capacity + 1);
+		}
+		int length = end - start;
+		if (poolSize + length > pool.length) {
+			pool = Arrays.copyOf(pool, Math.max(poolSize + length, pool.length * 2));
+		}
+		for (int i = start; i < end; i++) {
+			pool[poolSize++] = upper(source[i]);
+		}
+		hashes[id] = hash;
+		starts[id + 1] = poolSize;
+		slots[slot] = id + 1;
+		if (size * 2 > slots.length) {
+			rehash();
+		}
+		return id;
+	}
+
+	//Doubles the hash table
+	private void rehash() {
+		int[] old = slots;
+		slots = new int[old.length * 2];
+		int mask = slots.length - 1;
+		for (int entry : old) {
+			if (entry != 0) {
+				int slot = hashes[entry - 1] & mask;
+				while (slots[slot] != 0) {
+					slot = (slot + 1) & mask;
+				}
+				slots[slot] = entry;
+			}
+		}
+	}
+
+	private static byte upper(byte c) {
+		return c >= 'a' && c <= 'z' ? (byte)(c - ('a' - 'A')) : c;
+	}
+
+	private static int hash(byte[] source, int start, int end) {
+		int h = 0x811C9DC5;
+		for (int i = start; i < end; i++) {
+			h = (h ^ upper(source[i])) * 0x01000193;
+		}
+		return h ^ (h >>> 16);
+	}
+}
@@ -3,21 +3,31 @@ package edu.unf.cnt3404.sicxe.syntax.command;
 import edu.unf.cnt3404.sicxe.global.Mnemonic;
 import edu.unf.cnt3404.sicxe.syntax.Command;
 
-//Convenience class that implements label, comment, line, mnemonic,
+//Convenience class that implements kind, label, comment, line, mnemonic,
 //And row/col Locatable methods.
 public abstract class AbstractCommand implements Command {
-	private String label;
+	private final int kind;
+	private int label = -1;
 	private String comment;
 	private int line;
 	private Mnemonic mnemonic;
 	
+	protected AbstractCommand(int kind) {
+		this.kind = kind;
+	}
+	
+	@Override
+	public final int getKind() {
+		return kind;
+	}
+	
 	@Override
-	public void setLabel(String label) {
+	public void setLabel(int label) {
 		this.label = label;
 	}
 	
 	@Override
-	public String getLabel() {
+	public int getLabel() {
 		return label;
 	}
 	
@@ -1,7 +1,12 @@
 package edu.unf.cnt3404.sicxe.syntax.command;
 
+import edu.unf.cnt3404.sicxe.syntax.SymbolTable;
 
-public class Comment extends AbstractCommand {
+public final class Comment extends AbstractCommand {
+
+	public Comment() {
+		super(KIND_COMMENT);
+	}
 
 	@Override
 	public int getSize() {
@@ -9,7 +14,7 @@ public class Comment extends AbstractCommand {
 	}
 
 	@Override
-	public String getArgument() {
+	public String getArgument(SymbolTable symbols) {
 		return null;
 	}
 
@@ -2,6 +2,7 @@ package edu.unf.cnt3404.sicxe.syntax.command;
 
 import edu.unf.cnt3404.sicxe.syntax.Command;
 import edu.unf.cnt3404.sicxe.syntax.Expression;
+import edu.unf.cnt3404.sicxe.syntax.SymbolTable;
 
 //Represents a command that has an expression as its argument
 //like Format3/4 instructions, and WORD/EQU directives, etc.
@@ -9,7 +10,7 @@ public interface ExpressionCommand extends Command {
 	Expression getExpression();
 	
 	@Override
-	default public String getArgument() {
-		return " " + getExpression().toString();
+	default public String getArgument(SymbolTable symbols) {
+		return " " + getExpression().toString(symbols);
 	}
 }
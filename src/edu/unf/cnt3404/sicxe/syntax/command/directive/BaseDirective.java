@@ -4,11 +4,12 @@ import edu.unf.cnt3404.sicxe.syntax.Expression;
 import edu.unf.cnt3404.sicxe.syntax.command.AbstractCommand;
 import edu.unf.cnt3404.sicxe.syntax.command.ExpressionCommand;
 
-public class BaseDirective extends AbstractCommand implements ExpressionCommand {
+public final class BaseDirective extends AbstractCommand implements ExpressionCommand {
 
 	private Expression expr;
 	
 	public BaseDirective(Expression expr) {
+		super(KIND_BASE);
 		this.expr = expr;
 	}
 	
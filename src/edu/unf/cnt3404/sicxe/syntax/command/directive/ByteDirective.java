@@ -1,31 +1,29 @@
 package edu.unf.cnt3404.sicxe.syntax.command.directive;
 
+import edu.unf.cnt3404.sicxe.syntax.SymbolTable;
 import edu.unf.cnt3404.sicxe.syntax.Data;
 import edu.unf.cnt3404.sicxe.syntax.command.AbstractCommand;
-import edu.unf.cnt3404.sicxe.syntax.command.WriteableCommand;
 
-public class ByteDirective extends AbstractCommand implements WriteableCommand {
+public final class ByteDirective extends AbstractCommand {
 
 	private Data data;
 	
 	public ByteDirective(Data data) {
+		super(KIND_BYTE);
 		this.data = data;
 	}
 
-	@Override
-	public int getSize() {
-		return data.getSize();
+	public Data getData() {
+		return data;
 	}
 
 	@Override
-	public void write(byte[] buffer, int pos) {
-		for (byte b : data.toBytes()) {
-			buffer[pos++] = b;
-		}
+	public int getSize() {
+		return data.getSize();
 	}
 
 	@Override
-	public String getArgument() {
+	public String getArgument(SymbolTable symbols) {
 		return " " + data.toString();
 	}
 
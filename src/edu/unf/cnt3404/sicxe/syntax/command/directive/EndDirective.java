@@ -1,10 +1,11 @@
 package edu.unf.cnt3404.sicxe.syntax.command.directive;
 
 import edu.unf.cnt3404.sicxe.syntax.Expression;
+import edu.unf.cnt3404.sicxe.syntax.SymbolTable;
 import edu.unf.cnt3404.sicxe.syntax.command.AbstractCommand;
 import edu.unf.cnt3404.sicxe.syntax.command.ExpressionCommand;
 
-public class EndDirective extends AbstractCommand implements ExpressionCommand {
+public final class EndDirective extends AbstractCommand implements ExpressionCommand {
 
 	private Expression first; //Executable instruction
 	
@@ -14,6 +15,7 @@ public class EndDirective extends AbstractCommand implements ExpressionCommand {
 	}
 	
 	public EndDirective(Expression first) {
+		super(KIND_END);
 		this.first = first;
 	}
 	
@@ -31,10 +33,10 @@ public class EndDirective extends AbstractCommand implements ExpressionCommand {
 
 	//The only expression command that might contain a null expression
 	@Override
-	public String getArgument() {
+	public String getArgument(SymbolTable symbols) {
 		if (first == null) {
 			return null;
 		}
-		return " " + first.toString();
+		return " " + first.toString(symbols);
 	}
 }
@@ -1,18 +1,18 @@
 package edu.unf.cnt3404.sicxe.syntax.command.directive;
 
-import java.util.List;
-
+import edu.unf.cnt3404.sicxe.syntax.SymbolTable;
 import edu.unf.cnt3404.sicxe.syntax.command.AbstractCommand;
 
-public class ExtdefDirective extends AbstractCommand {
+public final class ExtdefDirective extends AbstractCommand {
 
-	private List<String> symbols;
+	private int[] symbols; //Ids
 	
-	public ExtdefDirective(List<String> symbols) {
+	public ExtdefDirective(int[] symbols) {
+		super(KIND_EXTDEF);
 		this.symbols = symbols;
 	}
 	
-	public List<String> getSymbols() {
+	public int[] getSymbols() {
 		return symbols;
 	}
 	
@@ -22,11 +22,11 @@ public class ExtdefDirective extends AbstractCommand {
 	}
 
 	@Override
-	public String getArgument() {
+	public String getArgument(SymbolTable table) {
 		StringBuilder result = new StringBuilder(" ");
-		for (int i = 0; i < symbols.size(); i++) {
-			result.append(symbols.get(i));
-			if (i < symbols.size() - 1) {
+		for (int i = 0; i < symbols.length; i++) {
+			result.append(table.getName(symbols[i]));
+			if (i < symbols.length - 1) {
 				result.append(",");
 			}
 		}
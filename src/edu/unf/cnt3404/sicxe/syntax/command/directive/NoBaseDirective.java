@@ -1,8 +1,13 @@
 package edu.unf.cnt3404.sicxe.syntax.command.directive;
 
+import edu.unf.cnt3404.sicxe.syntax.SymbolTable;
 import edu.unf.cnt3404.sicxe.syntax.command.AbstractCommand;
 
-public class NoBaseDirective extends AbstractCommand {
+public final class NoBaseDirective extends AbstractCommand {
+
+	public NoBaseDirective() {
+		super(KIND_NOBASE);
+	}
 
 	@Override
 	public int getSize() {
@@ -10,7 +15,7 @@ public class NoBaseDirective extends AbstractCommand {
 	}
 
 	@Override
-	public String getArgument() {
+	public String getArgument(SymbolTable symbols) {
 		return null;
 	}
 }
@@ -1,12 +1,14 @@
 package edu.unf.cnt3404.sicxe.syntax.command.directive;
 
+import edu.unf.cnt3404.sicxe.syntax.SymbolTable;
 import edu.unf.cnt3404.sicxe.syntax.command.AbstractCommand;
 
-public class ResbDirective extends AbstractCommand {
+public final class ResbDirective extends AbstractCommand {
 
 	public int numBytes;
 	
 	public ResbDirective(int numBytes) {
+		super(KIND_RESB);
 		this.numBytes = numBytes;
 	}
 
@@ -16,7 +18,7 @@ public class ResbDirective extends AbstractCommand {
 	}
 
 	@Override
-	public String getArgument() {
+	public String getArgument(SymbolTable symbols) {
 		return " " + Integer.toString(numBytes);
 	}
 }
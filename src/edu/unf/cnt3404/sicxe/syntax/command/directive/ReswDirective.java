@@ -1,12 +1,14 @@
 package edu.unf.cnt3404.sicxe.syntax.command.directive;
 
+import edu.unf.cnt3404.sicxe.syntax.SymbolTable;
 import edu.unf.cnt3404.sicxe.syntax.command.AbstractCommand;
 
-public class ReswDirective extends AbstractCommand {
+public final class ReswDirective extends AbstractCommand {
 
 	private int numWords;
 	
 	public ReswDirective(int numWords) {
+		super(KIND_RESW);
 		this.numWords = numWords;
 	}
 
@@ -16,7 +18,7 @@ public class ReswDirective extends AbstractCommand {
 	}
 
 	@Override
-	public String getArgument() {
+	public String getArgument(SymbolTable symbols) {
 		return " " + Integer.toString(numWords);
 	}
 }
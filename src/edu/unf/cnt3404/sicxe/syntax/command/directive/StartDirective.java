@@ -1,12 +1,14 @@
 package edu.unf.cnt3404.sicxe.syntax.command.directive;
 
+import edu.unf.cnt3404.sicxe.syntax.SymbolTable;
 import edu.unf.cnt3404.sicxe.syntax.command.AbstractCommand;
 
-public class StartDirective extends AbstractCommand {
+public final class StartDirective extends AbstractCommand {
 
 	private int start; //Address
 	
 	public StartDirective(int start) {
+		super(KIND_START);
 		this.start = start;
 	}
 	
@@ -20,7 +22,7 @@ public class StartDirective extends AbstractCommand {
 	}
 
 	@Override
-	public String getArgument() {
+	public String getArgument(SymbolTable symbols) {
 		return " " + Integer.toString(start);
 	}
 }
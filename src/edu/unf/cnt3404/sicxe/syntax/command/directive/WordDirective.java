@@ -1,17 +1,16 @@
 package edu.unf.cnt3404.sicxe.syntax.command.directive;
 
 import edu.unf.cnt3404.sicxe.syntax.Expression;
+import edu.unf.cnt3404.sicxe.syntax.SymbolTable;
 import edu.unf.cnt3404.sicxe.syntax.command.AbstractCommand;
-import edu.unf.cnt3404.sicxe.syntax.command.ModifiableCommand;
+import edu.unf.cnt3404.sicxe.syntax.command.ExpressionCommand;
 
-public class WordDirective extends AbstractCommand implements ModifiableCommand {
+public final class WordDirective extends AbstractCommand implements ExpressionCommand {
 
-	//The value inside the word, to be assembled
-	private int word;
-	
 	private Expression expr;
 	
 	public WordDirective(Expression expr) {
+		super(KIND_WORD);
 		this.expr = expr;
 	}
 	
@@ -20,39 +19,13 @@ public class WordDirective extends AbstractCommand implements ModifiableCommand
 		return expr;
 	}
 
-	public void setWord(int word) {
-		this.word = word;
-	}
-	
 	@Override
 	public int getSize() {
 		return 3;
 	}
 
 	@Override
-	public void write(byte[] buffer, int pos) {
-		buffer[pos] 	= (byte)(word >> 16);
-		buffer[pos + 1] = (byte)(word >> 8);
-		buffer[pos + 2] = (byte)(word);
-	}
-
-	@Override
-	public int getOffset() {
-		return 0; //The entire word needs to be modified
-	}
-
-	@Override
-	public int getStride() {
-		return 6; //Again, the entire word
-	}
-
-	@Override
-	public String getArgument() {
-		return " " + expr.toString();
-	}
-
-	@Override
-	public boolean isAbsolute() {
-		return true; //Always displays the absolute address.
+	public String getArgument(SymbolTable symbols) {
+		return " " + expr.toString(symbols);
 	}
 }
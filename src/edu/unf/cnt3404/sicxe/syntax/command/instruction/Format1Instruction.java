@@ -1,22 +1,21 @@
 package edu.unf.cnt3404.sicxe.syntax.command.instruction;
 
+import edu.unf.cnt3404.sicxe.syntax.SymbolTable;
 import edu.unf.cnt3404.sicxe.syntax.command.AbstractCommand;
-import edu.unf.cnt3404.sicxe.syntax.command.WriteableCommand;
 
-public class Format1Instruction extends AbstractCommand implements WriteableCommand {
+public final class Format1Instruction extends AbstractCommand {
 
-	@Override
-	public int getSize() {
-		return 1;
+	public Format1Instruction() {
+		super(KIND_FORMAT1);
 	}
 
 	@Override
-	public void write(byte[] buffer, int pos) {
-		buffer[pos] = getMnemonic().getOpcode();
+	public int getSize() {
+		return 1;
 	}
 
 	@Override
-	public String getArgument() {
+	public String getArgument(SymbolTable symbols) {
 		return null;
 	}
 
@@ -1,64 +1,54 @@
 package edu.unf.cnt3404.sicxe.syntax.command.instruction;
 
+import edu.unf.cnt3404.sicxe.syntax.SymbolTable;
 import edu.unf.cnt3404.sicxe.syntax.command.AbstractCommand;
-import edu.unf.cnt3404.sicxe.syntax.command.WriteableCommand;
 
-public class Format2Instruction extends AbstractCommand implements WriteableCommand {
+public final class Format2Instruction extends AbstractCommand {
 	//The different kinds of Format2 instructions use different fields:
 	//Format2R uses only r1 (but not r2)
 	//Format2N uses only n; (neither r1 nor r2)
 	//Format2RR uses r1 and r2; (both r1 and r2)
 	//Format2RN uses r1 and n; (but not r2)
-	private String r1;
-	private String r2;
+	//Symbol ids of the registers, or -1
+	private int r1 = -1;
+	private int r2 = -1;
 	private byte n;
 	
-	//to be assembled
-	private byte argument;
-	
 	//Constructs a Format2R instruction, where r is a register
-	public Format2Instruction(String r) {
+	public Format2Instruction(int r) {
+		super(KIND_FORMAT2);
 		r1 = r;
 	}
 	
 	//Constructs a Format2N instruction, where n is 0 to 15, inclusive
 	public Format2Instruction(byte n) {
+		super(KIND_FORMAT2);
 		this.n = n;
 	}
 	
 	//Constructs a Format2RR instruction, where r1 and r2 are each registers
-	public Format2Instruction(String r1, String r2) {
+	public Format2Instruction(int r1, int r2) {
+		super(KIND_FORMAT2);
 		this.r1 = r1;
 		this.r2 = r2;
 	}
 	
 	//Constructs a Format2RN instruction, where n is 1 to 16, inclusive
-	public Format2Instruction(String r, byte n) {
+	public Format2Instruction(int r, byte n) {
+		super(KIND_FORMAT2);
 		r1 = r;
 		this.n = n;
 	}
 	
-	//Sets the 4 higher order bits of the byte argument to the 4 lower bits of higher
-	//Sets the 4 lower order bits of the argument to 0
-	public void setArgument(byte higher) {
-		argument = (byte)((higher & 0xF) << 4); 
-	}
-	
-	//Sets the 4 higher order bits of the argument to the lower four bits of higher
-	//Sets the 4 lower order bits of the argument to the lower four bits of lower
-	public void setArgument(byte higher, byte lower) {
-		argument = (byte)(((higher & 0xF) << 4) | (lower & 0xF));
-	}
-	
 	//Returns the register if this instruction is a Format2R or Format2RN instruction
 	//Returns the first register if it is a Format2RR instruction,
-	//or null if this is a Format2N instruction
-	public String getRegisterOne() {
+	//or -1 if this is a Format2N instruction
+	public int getRegisterOne() {
 		return r1;
 	}
 	//Returns the second register if this instruction is a Format2RR instruction,
-	//or null otherwise
-	public String getRegisterTwo() {
+	//or -1 otherwise
+	public int getRegisterTwo() {
 		return r2;
 	}
 	//Returns the number if this instruction is a Format2N or Format2RN instruction
@@ -72,18 +62,12 @@ public class Format2Instruction extends AbstractCommand implements WriteableComm
 	}
 
 	@Override
-	public void write(byte[] buffer, int pos) {
-		buffer[pos] 	= getMnemonic().getOpcode();
-		buffer[pos + 1] = argument;
-	}
-
-	@Override
-	public String getArgument() {
+	public String getArgument(SymbolTable symbols) {
 		switch(getMnemonic().getFormat()) {
 		case FORMAT2N: return " " + Integer.toString(n);
-		case FORMAT2R: return " " + r1;
-		case FORMAT2RN: return " " + r2 + "," + n;
-		case FORMAT2RR: return " " + r1 + "," + r2;
+		case FORMAT2R: return " " + symbols.getName(r1);
+		case FORMAT2RN: return " " + symbols.getName(r2) + "," + n;
+		case FORMAT2RR: return " " + symbols.getName(r1) + "," + symbols.getName(r2);
 		default: throw new IllegalStateException(getMnemonic().getFormat().toString());
 		}
 	}
@@ -2,28 +2,30 @@ package edu.unf.cnt3404.sicxe.syntax.data;
 
 import edu.unf.cnt3404.sicxe.syntax.Data;
 
-//Represents data from an ascii string
+//Represents data from an ascii string. The bytes are decoded once, when the
+//data is parsed
 public class AsciiData implements Data {
 
 	private String value;
+	private byte[] bytes;
 	
 	public AsciiData(String value) {
 		this.value = value;
+		int len = value.length();
+		bytes = new byte[len];
+		for (int i = 0; i < len; i++) {
+			bytes[i] = (byte)value.charAt(i);
+		}
 	}
 	
 	@Override
 	public byte[] toBytes() {
-		int len = value.length();
-		byte[] result = new byte[len];
-		for (int i = 0; i < len; i++) {
-			result[i] = (byte)value.charAt(i);
-		}
-		return result;
+		return bytes;
 	}
 	
 	@Override
 	public int getSize() {
-		return value.length();
+		return bytes.length;
 	}
 
 	@Override
@@ -2,18 +2,26 @@ package edu.unf.cnt3404.sicxe.syntax.data;
 
 import edu.unf.cnt3404.sicxe.syntax.Data;
 
-//Represents data from a hexadecimal string
+//Represents data from a hexadecimal string. The bytes are decoded once, when
+//the data is parsed
 public class HexData implements Data {
 
 	private String value;
+	//Null if value has a character that is not a hex digit
+	private byte[] bytes;
 	
 	//Precondition: value must have even length and be a valid hex string
 	public HexData(String value) {
 		this.value = value;
+		bytes = decode(value);
 	}
 
 	@Override
 	public byte[] toBytes() {
+		if (bytes != null) {
+			return bytes;
+		}
+		//Let Integer.parseInt judge the invalid string, as it always has
 		byte[] result = new byte[value.length() / 2];
 		for (int i = 0; i < result.length; i++) {
 			String b = value.substring(i * 2, i * 2 + 2);
@@ -32,4 +40,17 @@ public class HexData implements Data {
 		return "X'" + value + "'";
 	}
 
+	//Decodes pairs of hex digits, or returns null if there is anything else
+	private static byte[] decode(String value) {
+		byte[] result = new byte[value.length() / 2];
+		for (int i = 0; i < result.length; i++) {
+			int high = Character.digit(value.charAt(i * 2), 16);
+			int low = Character.digit(value.charAt(i * 2 + 1), 16);
+			if (high < 0 || low < 0) {
+				return null;
+			}
+			result[i] = (byte)((high << 4) | low);
+		}
+		return result;
+	}
 }
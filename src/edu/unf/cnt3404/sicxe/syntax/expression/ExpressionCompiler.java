@@ -0,0 +1,96 @@
+package edu.unf.cnt3404.sicxe.syntax.expression;
+
+import java.util.Arrays;
+
+//Flattens an expression tree into a postfix program of ints, which an
+//Evaluator runs in one loop over an int stack.
+//Every instruction is one int: the low 4 bits are the opcode, and the rest
+//is the operand. NUMBER is followed by one more int holding the value.
+//SYMBOL's operand is the symbol's id times two, plus one if
+//the symbol's term is negative. STAR's operand is one if its term is negative.
+//The sign of a term is known from the tree alone: it is negative when the
+//term is on the right of an odd number of subtractions.
+//Operators whose operands are both constant are folded at compile time.
+public class ExpressionCompiler {
+
+	public static final int NUMBER = 0;
+	public static final int SYMBOL = 1;
+	public static final int STAR = 2;
+	public static final int ADD = 3;
+	public static final int SUB = 4;
+	public static final int MUL = 5;
+	public static final int DIV = 6;
+
+	private int[] code = new int[8];
+	private int size;
+
+	//Whether each value on the compile time stack is a constant
+	private boolean[] constant = new boolean[8];
+	private int depth;
+
+	public void number(int value) {
+		emit(NUMBER);
+		emit(value);
+		push(true);
+	}
+
+	public void symbol(int id, boolean positive) {
+		emit(SYMBOL | ((id * 2 + (positive ? 0 : 1)) << 4));
+		push(false);
+	}
+
+	public void star(boolean positive) {
+		emit(STAR | ((positive ? 0 : 1) << 4));
+		push(false);
+	}
+
+	public void operator(ExpressionOperator.Type type) {
+		boolean right = constant[--depth];
+		boolean left = constant[--depth];
+		//Both operands are NUMBER instructions at the end of the code
+		if (left && right && !(type == ExpressionOperator.Type.DIV && code[size - 1] == 0)) {
+			int r = code[size - 1];
+			int l = code[size - 3];
+			size -= 4;
+			number(apply(type, l, r));
+			return;
+		}
+		switch(type) {
+		case ADD: emit(ADD); break;
+		case SUB: emit(SUB); break;
+		case MUL: emit(MUL); break;
+		case DIV: emit(DIV); break;
+		default: throw new IllegalStateException(type.toString());
+		}
+		push(false);
+	}
+
+	//Applies the operator to two values
+	public static int apply(ExpressionOperator.Type type, int l, int r) {
+		switch(type) {
+		case ADD: return l + r;
+		case SUB: return l - r;
+		case MUL: return l * r;
+		case DIV: return l / r;
+		default: throw new IllegalStateException(type.toString());
+		}
+	}
+
+	public int[] getCode() {
+		return Arrays.copyOf(code, size);
+	}
+
+	private void emit(int instruction) {
+		if (size == code.length) {
+			code = Arrays.copyOf(code, size * 2);
+		}
+		code[size++] = instruction;
+	}
+
+	private void push(boolean isConstant) {
+		if (depth == constant.length) {
+			constant = Arrays.copyOf(constant, depth * 2);
+		}
+		constant[depth++] = isConstant;
+	}
+}
@@ -1,9 +1,6 @@
 package edu.unf.cnt3404.sicxe.syntax.expression;
 
-import java.util.List;
-
-import edu.unf.cnt3404.sicxe.syntax.Command;
-import edu.unf.cnt3404.sicxe.syntax.Program;
+import edu.unf.cnt3404.sicxe.syntax.SymbolTable;
 
 //Represents a constant numerical value expression
 public class ExpressionNumber implements ExpressionNode {
@@ -16,17 +13,12 @@ public class ExpressionNumber implements ExpressionNode {
 	}
 
 	@Override
-	public int getValue(Command command, Program program) {
-		return value;
-	}
-
-	@Override
-	public void write(StringBuilder infix) {
+	public void write(StringBuilder infix, SymbolTable symbols) {
 		infix.append(Integer.toString(value));
 	}
 	
 	@Override
-	public void addTerms(List<Term> terms, Program program) {
-		//No terms to add
+	public void compile(ExpressionCompiler compiler, boolean positive) {
+		compiler.number(value);
 	}
 }
@@ -1,11 +1,6 @@
 package edu.unf.cnt3404.sicxe.syntax.expression;
 
-import java.util.ArrayList;
-import java.util.List;
-
-import edu.unf.cnt3404.sicxe.parse.AssembleError;
-import edu.unf.cnt3404.sicxe.syntax.Command;
-import edu.unf.cnt3404.sicxe.syntax.Program;
+import edu.unf.cnt3404.sicxe.syntax.SymbolTable;
 
 //Represents an operation in an expression. These are addition, subtraction,
 //multiplication, and division
@@ -23,20 +18,7 @@ public class ExpressionOperator implements ExpressionNode {
 	}
 	
 	@Override
-	public int getValue(Command command, Program program) throws AssembleError {
-		int l = left.getValue(command, program);
-		int r = right.getValue(command, program);
-		switch(operator) {
-		case ADD: return l + r;
-		case SUB: return l - r;
-		case MUL: return l * r;
-		case DIV: return l / r;
-		default: throw new IllegalStateException(operator.toString());
-		}
-	}
-
-	@Override
-	public void write(StringBuilder infix) {
+	public void write(StringBuilder infix, SymbolTable symbols) {
 		//Whether to parenthesize the left
 		boolean l = left instanceof ExpressionOperator
 			&& ((ExpressionOperator)left).operator.precedence
@@ -52,7 +34,7 @@ public class ExpressionOperator implements ExpressionNode {
 		}
 		
 		if (l) infix.append('(');
-		left.write(infix);
+		left.write(infix, symbols);
 		if (l) infix.append(')');
 		
 		infix.append(' ');
@@ -60,30 +42,16 @@ public class ExpressionOperator implements ExpressionNode {
 		infix.append(' ');
 		
 		if (r) infix.append('(');
-		right.write(infix);
+		right.write(infix, symbols);
 		if (r) infix.append(')');
 	}
 	
 	@Override
-	public void addTerms(List<Term> terms, Program program) {
-		//No relative terms may enter into multiplication or division
-		
-		
-		left.addTerms(terms, program);
-		
-		if (operator == Type.SUB) {
-			//Invert the sign of the right side's symbols
-			List<Term> buffer = new ArrayList<>();
-			right.addTerms(buffer, program);
-			for (Term symbol : buffer) {
-				symbol.invertSign();
-			}
-			
-			terms.addAll(buffer);
-		} else {
-			right.addTerms(terms, program);
-		}
-		
+	public void compile(ExpressionCompiler compiler, boolean positive) {
+		left.compile(compiler, positive);
+		//Subtraction inverts the sign of the right side's terms
+		right.compile(compiler, operator == Type.SUB ? !positive : positive);
+		compiler.operator(operator);
 	}
 	
 	public static enum Type {
@@ -1,25 +1,17 @@
 package edu.unf.cnt3404.sicxe.syntax.expression;
 
-import java.util.List;
-
-import edu.unf.cnt3404.sicxe.syntax.Command;
-import edu.unf.cnt3404.sicxe.syntax.Program;
+import edu.unf.cnt3404.sicxe.syntax.SymbolTable;
 
 //Represents a star (*) that is, the current location counter
 public class ExpressionStar implements ExpressionNode {
 
 	@Override
-	public int getValue(Command command, Program program) {
-		return program.getLocationCounter();
-	}
-
-	@Override
-	public void write(StringBuilder infix) {
+	public void write(StringBuilder infix, SymbolTable symbols) {
 		infix.append('*');
 	}
 	
 	@Override
-	public void addTerms(List<Term> terms, Program program) {
-		terms.add(new Term());
+	public void compile(ExpressionCompiler compiler, boolean positive) {
+		compiler.star(positive);
 	}
 }
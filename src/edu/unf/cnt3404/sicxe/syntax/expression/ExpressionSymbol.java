@@ -1,47 +1,27 @@
 package edu.unf.cnt3404.sicxe.syntax.expression;
 
-import java.util.List;
-
-import edu.unf.cnt3404.sicxe.parse.AssembleError;
-import edu.unf.cnt3404.sicxe.syntax.Command;
-import edu.unf.cnt3404.sicxe.syntax.Program;
-import edu.unf.cnt3404.sicxe.syntax.Symbol;
+import edu.unf.cnt3404.sicxe.syntax.SymbolTable;
 
 public class ExpressionSymbol implements ExpressionNode {
 
-	private String name; //Of the symbol
-	
-	private Symbol symbol; //To be resolved during assembly
+	private int id; //Of the symbol
 	
-	//Creates an expression from a symbol with the given name
-	public ExpressionSymbol(String name) {
-		this.name = name;
+	//Creates an expression from a symbol with the given id
+	public ExpressionSymbol(int id) {
+		this.id = id;
 	}
 	
-	public String getName() {
-		return name;
-	}
-	
-	@Override
-	public int getValue(Command command, Program program) throws AssembleError {
-		if (symbol == null) {
-			symbol = program.getSymbol(name);
-			if (symbol == null) {
-				throw new AssembleError(command, "Unrecognized symbol " + name);
-			}
-		}
-		return symbol.getValue();
+	public int getId() {
+		return id;
 	}
 
 	@Override
-	public void write(StringBuilder infix) {
-		infix.append(name);
+	public void write(StringBuilder infix, SymbolTable symbols) {
+		infix.append(symbols.getName(id));
 	}
 	
 	@Override
-	public void addTerms(List<Term> terms, Program program) {
-		if (!symbol.isAbsolute()) {
-			terms.add(new Term(symbol));	
-		}
+	public void compile(ExpressionCompiler compiler, boolean positive) {
+		compiler.symbol(id, positive);
 	}
 }